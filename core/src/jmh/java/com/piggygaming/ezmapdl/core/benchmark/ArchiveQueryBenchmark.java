@@ -0,0 +1,62 @@
+package com.piggygaming.ezmapdl.core.benchmark;
+
+import com.piggygaming.ezmapdl.core.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+/**
+ * Checks on a single archive, as done for every candidate while scanning. Scores are archives/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ArchiveQueryBenchmark {
+
+    @Param({"SMALL_FILES", "LARGE_FILES"})
+    public SyntheticWorlds.Profile profile;
+
+    @Param({"STORED", "DEFLATED"})
+    public String method;
+
+    @Param({"ROOT", "NESTED"})
+    public SyntheticWorlds.Layout layout;
+
+    private Path directory;
+    private File archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = SyntheticWorlds.createTempDirectory("query");
+        int zipMethod = method.equals("STORED") ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        archive = SyntheticWorlds.write(directory.resolve("world.zip"), layout, zipMethod, profile, 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticWorlds.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public boolean zipfileContains() {
+        return FileUtils.zipfileContains(archive, "level.dat");
+    }
+
+    @Benchmark
+    public List<String> listContents() {
+        return FileUtils.listContents(archive);
+    }
+}
@@ -0,0 +1,87 @@
+package com.piggygaming.ezmapdl.core.benchmark;
+
+import com.piggygaming.ezmapdl.core.FileUtils;
+import com.piggygaming.ezmapdl.core.InstallProgress;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+/**
+ * Extracting a whole world, as an install does. The primary score is archives/s; the
+ * {@code megabytes} secondary score is the extraction throughput in MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExtractBenchmark {
+
+    @Param({"SMALL_FILES", "LARGE_FILES"})
+    public SyntheticWorlds.Profile profile;
+
+    @Param({"STORED", "DEFLATED"})
+    public String method;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path directory;
+    private File archive;
+    private File target;
+
+    /**
+     * Counts the megabytes written, reported by JMH as a rate next to the main score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = SyntheticWorlds.createTempDirectory("extract");
+        int zipMethod = method.equals("STORED") ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        archive = SyntheticWorlds.write(directory.resolve("world.zip"), SyntheticWorlds.Layout.NESTED, zipMethod, profile, 1);
+    }
+
+    @Setup(Level.Invocation)
+    public void createTarget() throws IOException {
+        target = Files.createDirectory(directory.resolve("out")).toFile();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws IOException {
+        SyntheticWorlds.deleteRecursively(target.toPath());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticWorlds.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void unzipFile(Throughput throughput) throws IOException {
+        FileUtils.unzipFile(archive.getPath(), target, threads, new InstallProgress());
+        throughput.megabytes += SyntheticWorlds.uncompressedSize(profile) / (1024.0 * 1024.0);
+    }
+}
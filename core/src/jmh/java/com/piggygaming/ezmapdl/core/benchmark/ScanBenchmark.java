@@ -0,0 +1,74 @@
+package com.piggygaming.ezmapdl.core.benchmark;
+
+import com.piggygaming.ezmapdl.core.FileUtils;
+import com.piggygaming.ezmapdl.core.WorldScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+/**
+ * Scanning a folder of archives, a quarter of which are not worlds. Scores are archives/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScanBenchmark {
+
+    private static final int ARCHIVES = 100;
+
+    /** Region files per archive, which sets the size of each central directory. */
+    @Param({"64", "2048"})
+    public int entries;
+
+    @Param({"STORED", "DEFLATED"})
+    public String method;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = SyntheticWorlds.createTempDirectory("scan");
+        int zipMethod = method.equals("STORED") ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        for (int i = 0; i < ARCHIVES; i++) {
+            SyntheticWorlds.Layout layout = i % 2 == 0 ? SyntheticWorlds.Layout.ROOT : SyntheticWorlds.Layout.NESTED;
+            SyntheticWorlds.write(directory.resolve("world-" + i + ".zip"), layout, zipMethod, entries, 1024, i % 4 != 3, i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticWorlds.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ARCHIVES)
+    public List<File> getAllWorldFiles() throws IOException {
+        return FileUtils.getAllWorldFiles(directory.toString());
+    }
+
+    /**
+     * A full background scan without the world index, so every archive is opened.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ARCHIVES)
+    public List<File> worldScanner() throws InterruptedException {
+        WorldScanner scanner = new WorldScanner(directory.toString(), WorldScanner.defaultParallelism(), null, null);
+        scanner.start();
+        scanner.join();
+        return scanner.getFoundWorldFiles();
+    }
+}
@@ -0,0 +1,118 @@
+package com.piggygaming.ezmapdl.core.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes fake world archives for the benchmarks. Region files are half random and half zeros, so
+ * they deflate to roughly half their size like real ones.
+ */
+public final class SyntheticWorlds {
+
+    /** Where the world's level.dat sits in the archive. */
+    public enum Layout {
+        ROOT,
+        NESTED
+    }
+
+    /** How the world's bytes are spread over its region files. */
+    public enum Profile {
+        /** Many small region files, like a large but sparsely explored world. */
+        SMALL_FILES(1024, 32 * 1024),
+        /** A few huge region files. */
+        LARGE_FILES(4, 32 * 1024 * 1024);
+
+        final int regionFiles;
+        final int regionSize;
+
+        Profile(int regionFiles, int regionSize) {
+            this.regionFiles = regionFiles;
+            this.regionSize = regionSize;
+        }
+    }
+
+    private SyntheticWorlds() {
+    }
+
+    /**
+     * Writes a world archive.
+     * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+     * @param isWorld Whether to include a level.dat
+     */
+    static File write(Path file, Layout layout, int method, int regionFiles, int regionSize, boolean isWorld, long seed) throws IOException {
+        Random random = new Random(seed);
+        String folder = layout == Layout.NESTED ? "World/" : "";
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+            zip.setMethod(method);
+            if (isWorld) {
+                put(zip, folder + "level.dat", content(random, 2048), method);
+            }
+            put(zip, folder + "icon.png", content(random, 4096), method);
+            byte[] region = content(random, regionSize);
+            for (int i = 0; i < regionFiles; i++) {
+                // Vary the first bytes so entries have different CRCs without regenerating the data
+                region[0] = (byte) i;
+                region[1] = (byte) (i >> 8);
+                put(zip, folder + "region/r." + (i % 32) + "." + (i / 32) + ".mca", region, method);
+            }
+        }
+        return file.toFile();
+    }
+
+    static File write(Path file, Layout layout, int method, Profile profile, long seed) throws IOException {
+        return write(file, layout, method, profile.regionFiles, profile.regionSize, true, seed);
+    }
+
+    static long uncompressedSize(Profile profile) {
+        return 2048 + 4096 + (long) profile.regionFiles * profile.regionSize;
+    }
+
+    private static void put(ZipOutputStream zip, String name, byte[] data, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    private static byte[] content(Random random, int size) {
+        byte[] data = new byte[size];
+        for (int offset = 0; offset < size; offset += 8192) {
+            int length = Math.min(4096, size - offset);
+            byte[] chunk = new byte[length];
+            random.nextBytes(chunk);
+            System.arraycopy(chunk, 0, data, offset, length);
+        }
+        return data;
+    }
+
+    static Path createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory("ezmapdl-bench-" + prefix);
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path child : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(child);
+            }
+        }
+    }
+}
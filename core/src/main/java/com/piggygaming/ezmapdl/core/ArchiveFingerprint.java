@@ -0,0 +1,16 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+
+/**
+ * Identifies one version of an archive: if any of these change, cached results for it are stale.
+ */
+public record ArchiveFingerprint(String path, long size, long lastModified) {
+
+    /**
+     * Reads the fingerprint of a file from disk.
+     */
+    public static ArchiveFingerprint of(File file) {
+        return new ArchiveFingerprint(file.getAbsolutePath(), file.length(), file.lastModified());
+    }
+}
@@ -0,0 +1,112 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A world archive format.
+ *
+ * <p>Formats with random access (zip) can look entries up from an index; streaming formats (tar.gz)
+ * must be read front to back, so callers that only need to know whether an archive is a world use
+ * {@link #locate(File, String)}, which stops at the first match, rather than {@link #probe(File)}.</p>
+ */
+public interface ArchiveReader {
+
+    /**
+     * Returns the lower-case file name endings of this format, e.g. {@code .tar.gz} and {@code .tgz}.
+     */
+    List<String> suffixes();
+
+    /**
+     * Returns true if this format reads files with the given lower-case name.
+     */
+    default boolean accepts(String lowerCaseName) {
+        for (String suffix : suffixes()) {
+            if (lowerCaseName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a file name without this format's ending, e.g. {@code map} for {@code map.tar.gz}.
+     * Other names lose their last extension, since unknown names are read as zips.
+     */
+    default String baseName(String fileName) {
+        for (String suffix : suffixes()) {
+            if (fileName.regionMatches(true, fileName.length() - suffix.length(), suffix, 0, suffix.length())) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        return fileName.replaceFirst("[.][^.]+$", "");
+    }
+
+    /**
+     * Returns true if entries can be found without reading the whole archive.
+     */
+    boolean isRandomAccess();
+
+    /**
+     * Calls the visitor with each entry name, in archive order, until it returns false.
+     * @return false if the visitor stopped the walk
+     */
+    boolean forEachEntryName(File archive, Predicate<String> visitor) throws IOException;
+
+    /**
+     * Looks for an entry with the given file name, at the root or in a folder, stopping at the first match.
+     */
+    default LevelDatLocation locate(File archive, String fileName) throws IOException {
+        String nestedSuffix = "/" + fileName;
+        LevelDatLocation[] found = {LevelDatLocation.NONE};
+        forEachEntryName(archive, name -> {
+            if (name.equals(fileName)) {
+                found[0] = LevelDatLocation.ROOT;
+            } else if (name.endsWith(nestedSuffix)) {
+                found[0] = LevelDatLocation.NESTED;
+            }
+            return found[0] == LevelDatLocation.NONE;
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns true if any entry name contains the given text.
+     */
+    default boolean contains(File archive, String text) throws IOException {
+        return !forEachEntryName(archive, name -> !name.contains(text));
+    }
+
+    /**
+     * Finds level.dat and, where it is cheap, totals the archive's entries. Streaming formats only
+     * locate level.dat and report 0 entries and bytes.
+     */
+    default WorldProbe probe(File archive) throws IOException {
+        return new WorldProbe(locate(archive, "level.dat"), 0, 0);
+    }
+
+    /**
+     * Opens a file that sits next to the world's level.dat, e.g. level.dat itself or icon.png.
+     * @return The file's content, or null if the archive has no level.dat or no such file next to it
+     */
+    InputStream openWorldFile(File archive, String fileName) throws IOException;
+
+    /**
+     * Extracts the archive into a folder.
+     * @param threads The maximum number of entries extracted at the same time, ignored by streaming formats
+     * @param progress Updated as entries are written
+     */
+    default void extract(File archive, File destDir, int threads, InstallProgress progress) throws IOException {
+        extract(archive, destDir, threads, progress, name -> true);
+    }
+
+    /**
+     * Extracts the entries whose names pass the filter into a folder, e.g. a single world of a
+     * multi-world archive or only the files that changed.
+     * @param include Called with each entry name, returns true to extract the entry
+     */
+    void extract(File archive, File destDir, int threads, InstallProgress progress, Predicate<String> include) throws IOException;
+}
@@ -0,0 +1,50 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The archive formats worlds are looked for in, picked by file name.
+ */
+public final class ArchiveReaders {
+
+    public static final ArchiveReader ZIP = new ZipArchiveReader();
+    public static final ArchiveReader TAR = new TarArchiveReader(false);
+    public static final ArchiveReader TAR_GZ = new TarArchiveReader(true);
+
+    private static final List<ArchiveReader> READERS = List.of(ZIP, TAR_GZ, TAR);
+
+    private ArchiveReaders() {
+    }
+
+    /**
+     * Returns the reader for a file, or null if its name is not that of a supported archive.
+     */
+    public static ArchiveReader forFile(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        for (ArchiveReader reader : READERS) {
+            if (reader.accepts(name)) {
+                return reader;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the reader for a file, treating unknown names as zips as the mod always has.
+     */
+    public static ArchiveReader forFileOrZip(File file) {
+        ArchiveReader reader = forFile(file);
+        return reader != null ? reader : ZIP;
+    }
+
+    public static boolean isArchive(File file) {
+        return forFile(file) != null;
+    }
+
+    public static boolean isArchive(Path file) {
+        return isArchive(file.toFile());
+    }
+}
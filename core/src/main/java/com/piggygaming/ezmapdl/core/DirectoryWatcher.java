@@ -0,0 +1,242 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches directories for world archives and unpacked world folders that are added, replaced or
+ * removed, so the world list can follow downloads without rescanning.
+ *
+ * <p>A changed archive is only validated once its size and modification time have stayed the same
+ * for a second, so a file that is still downloading is not opened over and over. A new folder is
+ * looked at once it stopped changing, and for a while longer if its level.dat has not arrived yet.
+ * Only the top level of each directory is watched; worlds in nested folders, which a recursive scan
+ * finds, are picked up by the next scan. While nothing is pending the thread blocks on the watch
+ * service and uses no CPU.</p>
+ */
+public final class DirectoryWatcher extends Thread {
+
+    /**
+     * Receives changes on the watcher thread.
+     */
+    public interface Listener {
+        void worldAdded(File archive);
+
+        void worldRemoved(File archive);
+    }
+
+    private static final long SETTLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** How long a new folder without a level.dat is watched for one to be copied into it. */
+    private static final long FOLDER_WAIT_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long POLL_MILLIS = 250;
+
+    private final List<Path> directories;
+    /** Where cached validation results are kept, or null to always open the archive. */
+    private final Path indexFile;
+    private final Listener listener;
+    /** Archives and folders that changed and have not settled yet. Watcher thread only. */
+    private final Map<Path, Pending> pending = new HashMap<>();
+    private volatile boolean shouldStop;
+    private volatile WatchService watchService;
+
+    /**
+     * @param directory The directory to watch
+     * @param indexFile The {@link WorldIndex} file to validate through, or null to disable caching
+     * @param listener Told about worlds that appear or disappear
+     */
+    public DirectoryWatcher(Path directory, Path indexFile, Listener listener) {
+        this(List.of(directory), indexFile, listener);
+    }
+
+    /**
+     * @param directories The directories to watch, e.g. the selected one and the extra discovery roots
+     */
+    public DirectoryWatcher(List<Path> directories, Path indexFile, Listener listener) {
+        this.directories = List.copyOf(directories);
+        this.indexFile = indexFile;
+        this.listener = listener;
+        this.setDaemon(true);
+        this.setName("DirectoryWatcher-Thread");
+    }
+
+    @Override
+    public void run() {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            watchService = service;
+            if (shouldStop) {
+                return;
+            }
+            int watched = 0;
+            for (Path directory : directories) {
+                try {
+                    directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                    watched++;
+                } catch (IOException e) {
+                    EasyMapDownloadCore.LOGGER.warn("Could not watch " + directory + ": " + e.getMessage());
+                }
+            }
+
+            while (!shouldStop && watched > 0) {
+                WatchKey key = pending.isEmpty() ? service.take() : service.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                    if (!key.reset()) {
+                        // The directory itself is gone
+                        watched--;
+                    }
+                }
+                validateSettled();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Stopped
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.warn("Could not watch " + directories + ": " + e.getMessage());
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, look at everything again; unchanged archives are answered by the index
+                queueAll(directory);
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // Whether it was a folder cannot be told any more; removing something never listed does nothing
+                pending.remove(file);
+                listener.worldRemoved(file.toFile());
+            } else if (isCandidate(file)) {
+                pending.computeIfAbsent(file, ignored -> new Pending()).changedAt = System.nanoTime();
+            }
+        }
+    }
+
+    private void queueAll(Path directory) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, DirectoryWatcher::isCandidate)) {
+            for (Path file : stream) {
+                pending.computeIfAbsent(file, ignored -> new Pending()).changedAt = System.nanoTime();
+            }
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.debug("Could not list " + directory + " after lost events: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validates the pending archives whose size and modification time stopped changing.
+     */
+    private void validateSettled() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Pending>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && !shouldStop) {
+            Map.Entry<Path, Pending> entry = iterator.next();
+            Path file = entry.getKey();
+            Pending state = entry.getValue();
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                iterator.remove();
+                continue;
+            } catch (IOException e) {
+                continue;
+            }
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (size != state.size || modified != state.lastModified) {
+                state.size = size;
+                state.lastModified = modified;
+                state.changedAt = now;
+                continue;
+            }
+            if (now - state.changedAt < SETTLE_NANOS) {
+                continue;
+            }
+
+            boolean isWorld = validate(file.toFile(), attributes.isDirectory());
+            if (!isWorld && attributes.isDirectory() && now - state.firstSeen < FOLDER_WAIT_NANOS) {
+                // The folder may still be being copied, with its level.dat yet to come
+                state.changedAt = now;
+                continue;
+            }
+            iterator.remove();
+            if (isWorld) {
+                listener.worldAdded(file.toFile());
+            } else {
+                // Replaced by something that is not a world
+                listener.worldRemoved(file.toFile());
+            }
+        }
+    }
+
+    private boolean validate(File archive, boolean isDirectory) {
+        if (isDirectory) {
+            return FileUtils.isWorldFolder(archive);
+        }
+        try {
+            if (indexFile == null) {
+                return FileUtils.locateLevelDat(archive).isWorld();
+            }
+            WorldIndex index = WorldIndex.get(indexFile);
+            boolean isWorld = index.probe(archive).isWorld();
+            index.flush();
+            return isWorld;
+        } catch (Exception e) {
+            EasyMapDownloadCore.LOGGER.debug("Skipping invalid zip file: " + archive.getName());
+            return false;
+        }
+    }
+
+    private static boolean isCandidate(Path file) {
+        return ArchiveReaders.isArchive(file) || Files.isDirectory(file);
+    }
+
+    /**
+     * Stops watching. Safe to call from any thread.
+     */
+    public void stopWatching() {
+        shouldStop = true;
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                // Wakes the thread if it is waiting for events
+                service.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Returns the directories this watcher looks at.
+     */
+    public List<Path> getDirectories() {
+        return directories;
+    }
+
+    private static final class Pending {
+        private final long firstSeen = System.nanoTime();
+        private long size = -1;
+        private long lastModified = -1;
+        private long changedAt;
+    }
+}
@@ -0,0 +1,108 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * How many installs a disk takes at the same time. Disks that spin get one, since concurrent
+ * extractions make the heads seek between files; solid state disks get several.
+ *
+ * <p>On Linux the kind is read from sysfs. Elsewhere it is unknown, so the disk starts with one
+ * install at a time and is allowed more once an install to it has been measured to be fast.</p>
+ */
+final class DiskProfile {
+
+    enum Kind {
+        ROTATIONAL,
+        SOLID_STATE,
+        UNKNOWN
+    }
+
+    /** Installs writing at least this fast, fsync included, show the disk is not a spinning one. */
+    static final double FAST_BYTES_PER_SECOND = 150.0 * 1024 * 1024;
+    /** Installs smaller than this finish in the page cache and say nothing about the disk. */
+    static final long MIN_MEASURED_BYTES = 64L * 1024 * 1024;
+
+    private final Kind kind;
+    private boolean measuredFast;
+    /** Installs currently writing to the disk. Guarded by the install service. */
+    int running;
+
+    private DiskProfile(Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Works out the kind of disk a folder is on. Reads a few small files, so it is cheap, but it is disk I/O.
+     */
+    static DiskProfile of(Path folder) {
+        Kind kind = detect(folder);
+        EasyMapDownloadCore.LOGGER.info("Installs into " + folder + " go to a disk of kind " + kind);
+        return new DiskProfile(kind);
+    }
+
+    private static Kind detect(Path folder) {
+        try {
+            // The saves folder may not exist yet, its nearest existing parent is on the same disk
+            Path existing = folder.toAbsolutePath();
+            while (existing != null && !Files.exists(existing)) {
+                existing = existing.getParent();
+            }
+            if (existing == null) {
+                return Kind.UNKNOWN;
+            }
+            FileStore store = Files.getFileStore(existing);
+            String device = store.name();
+            if (!device.startsWith("/dev/")) {
+                return Kind.UNKNOWN;
+            }
+            // /dev/mapper/... links resolve to /dev/dm-N, which has a sysfs entry
+            String deviceName = Path.of(device).toRealPath().getFileName().toString();
+            Path sysfs = Path.of("/sys/class/block", deviceName);
+            if (!Files.exists(sysfs)) {
+                return Kind.UNKNOWN;
+            }
+            // Partitions have no queue folder of their own, their parent device does
+            for (Path dir = sysfs.toRealPath(); dir != null && dir.getNameCount() > 2; dir = dir.getParent()) {
+                Path rotational = dir.resolve("queue").resolve("rotational");
+                if (Files.isRegularFile(rotational)) {
+                    return Files.readString(rotational).trim().equals("1") ? Kind.ROTATIONAL : Kind.SOLID_STATE;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            EasyMapDownloadCore.LOGGER.debug("Could not tell the disk kind of " + folder + ": " + e);
+        }
+        return Kind.UNKNOWN;
+    }
+
+    /**
+     * Returns how many installs may write to this disk at the same time.
+     * @param solidStateLimit The limit for disks that do not spin
+     */
+    int getLimit(int solidStateLimit) {
+        return switch (kind) {
+            case ROTATIONAL -> 1;
+            case SOLID_STATE -> solidStateLimit;
+            case UNKNOWN -> measuredFast ? solidStateLimit : 1;
+        };
+    }
+
+    /**
+     * Takes in how fast a finished install wrote, which decides the limit of a disk of unknown kind.
+     */
+    void recordThroughput(long bytes, long nanos) {
+        if (kind != Kind.UNKNOWN || measuredFast || bytes < MIN_MEASURED_BYTES || nanos <= 0) {
+            return;
+        }
+        if (bytes / (nanos / 1e9) >= FAST_BYTES_PER_SECOND) {
+            measuredFast = true;
+            EasyMapDownloadCore.LOGGER.info("Disk measured as fast, allowing concurrent installs");
+        }
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,16 @@
+package com.piggygaming.ezmapdl.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared state of the world scanning and install engine, which has no Minecraft dependency.
+ */
+public final class EasyMapDownloadCore {
+
+    public static final String ID = "ezmapdl";
+    public static final Logger LOGGER = LoggerFactory.getLogger(ID);
+
+    private EasyMapDownloadCore() {
+    }
+}
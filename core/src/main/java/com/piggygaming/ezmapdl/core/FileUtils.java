@@ -1,28 +1,42 @@
-package com.piggygaming.ezmapdl;
+package com.piggygaming.ezmapdl.core;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
 public class FileUtils {
 
+    private static final byte[] LEVEL_DAT = "level.dat".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NESTED_LEVEL_DAT = "/level.dat".getBytes(StandardCharsets.UTF_8);
+    private static volatile String downloadsFolder;
+
     /**
      * Gets the user's actual Downloads folder, checking system settings.
      * Falls back to default locations if the configured path cannot be determined.
+     * The lookup can start a process, so the result is cached after the first call.
      * 
      * @return The path to the Downloads folder
      */
     public static String getDownloadsFolder() {
+        String folder = downloadsFolder;
+        if (folder == null) {
+            folder = findDownloadsFolder();
+            downloadsFolder = folder;
+        }
+        return folder;
+    }
+
+    private static String findDownloadsFolder() {
         String os = System.getProperty("os.name").toLowerCase();
         
         if (os.contains("win")) {
@@ -113,48 +127,43 @@ public class FileUtils {
     }
 
     public static File newFile(File destinationDir, ZipEntry zipEntry) throws IOException {
-        File destFile = new File(destinationDir, zipEntry.getName().replaceAll("[:]",""));
+        return newFile(destinationDir, zipEntry.getName());
+    }
+
+    public static File newFile(File destinationDir, String entryName) throws IOException {
+        File destFile = new File(destinationDir, entryName.replaceAll("[:]",""));
 
         String destDirPath = destinationDir.getCanonicalPath();
         String destFilePath = destFile.getCanonicalPath();
 
         if (!destFilePath.startsWith(destDirPath + File.separator)) {
-            throw new IOException("Entry is outside of the target dir: " + zipEntry.getName());
+            throw new IOException("Entry is outside of the target dir: " + entryName);
         }
 
         return destFile;
     }
 
     public static void unzipFile(String fileZip, File destDir) throws IOException {
-        byte[] buffer = new byte[1024];
-        ZipInputStream zis = new ZipInputStream(new FileInputStream(fileZip));
-        ZipEntry zipEntry = zis.getNextEntry();
-        while (zipEntry != null) {
-            File newFile = newFile(destDir, zipEntry);
-            if (zipEntry.isDirectory()) {
-                if (!newFile.isDirectory() && !newFile.mkdirs()) {
-                    throw new IOException("Failed to create directory " + newFile);
-                }
-            } else {
-                // fix for Windows-created archives
-                File parent = newFile.getParentFile();
-                if (!parent.isDirectory() && !parent.mkdirs()) {
-                    throw new IOException("Failed to create directory " + parent);
-                }
+        unzipFile(fileZip, destDir, ZipExtractor.defaultParallelism(), new InstallProgress());
+    }
 
-                // write file content
-                FileOutputStream fos = new FileOutputStream(newFile);
-                int len;
-                while ((len = zis.read(buffer)) > 0) {
-                    fos.write(buffer, 0, len);
-                }
-                fos.close();
-            }
-            zipEntry = zis.getNextEntry();
-        }
+    /**
+     * Extracts a world archive with the reader for its format.
+     * Zip entries are inflated in parallel; streaming formats are extracted in one pass.
+     * @param threads The maximum number of entries extracted at the same time
+     * @param progress Updated as entries are written
+     */
+    public static void unzipFile(String fileZip, File destDir, int threads, InstallProgress progress) throws IOException {
+        unzipFile(fileZip, destDir, threads, progress, name -> true);
+    }
 
-        zis.closeEntry();
-        zis.close();
+    /**
+     * Extracts the entries of a world archive whose names pass the filter.
+     * @param include Called with each entry name, returns true to extract the entry
+     */
+    public static void unzipFile(String fileZip, File destDir, int threads, InstallProgress progress, Predicate<String> include) throws IOException {
+        File archive = new File(fileZip);
+        ArchiveReaders.forFileOrZip(archive).extract(archive, destDir, threads, progress, include);
     }
 
     /**
@@ -164,17 +173,30 @@ public class FileUtils {
      */
     public static List<File> getAllWorldFiles(String directoryFilePath) throws IOException {
         File directory = new File(directoryFilePath);
-        File[] files = directory.listFiles(File::isFile);
+        File[] files = directory.listFiles();
         
         if (files == null || files.length == 0) {
             return List.of();
         }
         
-        // Filter to only .zip files first to reduce processing
+        // Filter to only archives and folders first to reduce processing
         File[] zipFiles = Arrays.stream(files)
-            .filter(f -> getFileExtension(f).equals(".zip"))
+            .filter(f -> f.isDirectory() || ArchiveReaders.isArchive(f))
             .toArray(File[]::new);
-        
+        return filterWorldFiles(zipFiles);
+    }
+
+    /**
+     * Gets all valid Minecraft world zip files in and below a directory and the discovery's extra roots.
+     * @param directoryFilePath The directory to search
+     * @param discovery Limits how deep and how many files are searched
+     * @return List of all valid world zip files, sorted by modification date (newest first)
+     */
+    public static List<File> getAllWorldFiles(String directoryFilePath, WorldDiscovery discovery) throws InterruptedException {
+        return filterWorldFiles(discovery.findArchives(Path.of(directoryFilePath)).toArray(File[]::new));
+    }
+
+    private static List<File> filterWorldFiles(File[] zipFiles) {
         if (zipFiles.length == 0) {
             return List.of();
         }
@@ -186,51 +208,102 @@ public class FileUtils {
         return Arrays.stream(zipFiles)
             .filter(file -> {
                 try {
-                    return zipfileContains(file, "level.dat");
+                    return file.isDirectory() ? isWorldFolder(file) : locateLevelDat(file).isWorld();
                 } catch (Exception e) {
                     // Skip corrupted or invalid zip files
-                    EasyMapDownload.LOGGER.debug("Skipping invalid zip file: " + file.getName());
+                    EasyMapDownloadCore.LOGGER.debug("Skipping invalid zip file: " + file.getName());
                     return false;
                 }
             })
             .collect(Collectors.toList());
     }
 
+    /**
+     * Returns true if a folder is an unpacked world, that is it has a level.dat directly inside.
+     */
+    public static boolean isWorldFolder(File folder) {
+        return new File(folder, "level.dat").isFile();
+    }
+
     public static File getLastModified(String directoryFilePath) throws IOException {
         List<File> worldFiles = getAllWorldFiles(directoryFilePath);
         return worldFiles.isEmpty() ? null : worldFiles.get(0);
     }
     
     public static boolean fileNotInRootDir(File zip, String targetFile) {
-        return zipfileContains(zip, "/" + targetFile);
+        return locateEntry(zip, targetFile) == LevelDatLocation.NESTED;
+    }
+
+    /**
+     * Finds the world's level.dat in an archive, stopping at the first match.
+     * @param zipfile The archive to check
+     * @return Whether level.dat is at the root, nested in a folder, or missing (also for invalid archives)
+     */
+    public static LevelDatLocation locateLevelDat(File zipfile) {
+        return locateEntry(zipfile, "level.dat");
+    }
+
+    private static LevelDatLocation locateEntry(File zipfile, String fileName) {
+        try {
+            return ArchiveReaders.forFileOrZip(zipfile).locate(zipfile, fileName);
+        } catch (IOException ioException) {
+            // Silently skip corrupted or invalid archives
+            return LevelDatLocation.NONE;
+        }
+    }
+
+    /**
+     * Validates an archive and, where the format allows it cheaply, totals its entries.
+     * For zips this always walks the whole central directory, unlike {@link #locateLevelDat(File)}.
+     * @param zipfile The archive to check
+     * @return The probe result, {@link WorldProbe#INVALID} for corrupted or invalid archives
+     */
+    public static WorldProbe probeWorld(File zipfile) {
+        try {
+            return ArchiveReaders.forFileOrZip(zipfile).probe(zipfile);
+        } catch (IOException ioException) {
+            return WorldProbe.INVALID;
+        }
+    }
+
+    /**
+     * Finds a file that sits next to the world's level.dat in a zip, e.g. level.dat itself or icon.png.
+     * @return The entry, or null if the archive has no level.dat or no such file next to it
+     */
+    public static ZipCentralDirectory.EntryData findWorldFile(ZipCentralDirectory directory, String fileName) throws IOException {
+        String[] levelDat = {null};
+        directory.forEach(entry -> {
+            if (entry.nameEquals(LEVEL_DAT) || entry.nameEndsWith(NESTED_LEVEL_DAT)) {
+                levelDat[0] = entry.getName();
+                return false;
+            }
+            return true;
+        });
+        if (levelDat[0] == null) {
+            return null;
+        }
+        String worldFolder = levelDat[0].substring(0, levelDat[0].length() - LEVEL_DAT.length);
+        return directory.findEntry(worldFolder + fileName);
     }
 
     public static List<String> listContents(File file){
-        ZipFile zipFile = null;
+        List<String> fileContent = new ArrayList<>();
         try {
-            zipFile = new ZipFile(file);
-            List<String> fileContent = zipFile.stream().map(ZipEntry::getName).collect(Collectors.toList());
-            zipFile.close();
+            ArchiveReaders.forFileOrZip(file).forEachEntryName(file, fileContent::add);
             return fileContent;
         }
         catch (IOException ioException) {
-            // Silently skip corrupted or invalid zip files
-            // System.out.println("Error opening zip file: " + file.getName() + " - " + ioException.getMessage());
+            // Silently skip corrupted or invalid archives
         }
         return null;
     }
 
     public static boolean zipfileContains(File zipfile, String targetFile) {
-        List<String> list = listContents(zipfile);
-        if (list == null) {
-            return false; // Invalid or corrupted zip file
-        }
-        for (String file : list) {
-            if (file.contains(targetFile)) {
-                return true;
-            }
+        try {
+            return ArchiveReaders.forFileOrZip(zipfile).contains(zipfile, targetFile);
+        } catch (IOException ioException) {
+            return false; // Invalid or corrupted archive
         }
-        return false;
     }
 
 }
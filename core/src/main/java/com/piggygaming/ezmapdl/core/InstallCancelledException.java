@@ -0,0 +1,15 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.IOException;
+
+/**
+ * Thrown from extraction code when the user cancelled the install.
+ */
+public class InstallCancelledException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InstallCancelledException() {
+        super("Install cancelled");
+    }
+}
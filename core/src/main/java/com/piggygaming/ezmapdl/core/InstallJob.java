@@ -0,0 +1,84 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An install task queued in the {@link InstallService}, with the state the queue screen shows.
+ */
+public class InstallJob {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final InstallTask task;
+    private final Path savesPath;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private volatile State state = State.QUEUED;
+    private volatile Throwable error;
+    /** The threads the task asked for, shared out while other installs run. */
+    final int requestedThreads;
+    /** The disk the job writes to, null until it has been looked up. Guarded by the install service. */
+    DiskProfile disk;
+    long startNanos;
+
+    InstallJob(InstallTask task) {
+        this.task = task;
+        this.savesPath = task.getSavesDir().getAbsoluteFile().toPath();
+        this.requestedThreads = task.getThreads();
+    }
+
+    public InstallTask getTask() {
+        return task;
+    }
+
+    /**
+     * Returns the absolute saves folder the job installs into, which decides its disk.
+     */
+    Path getSavesPath() {
+        return savesPath;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    /**
+     * Returns why the job failed, or null.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    void setError(Throwable error) {
+        this.error = error;
+    }
+
+    /**
+     * Completes normally on success, or exceptionally with the failure, which is an
+     * {@link InstallCancelledException} if the job was cancelled.
+     */
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    /**
+     * Cancels the job: a queued job is dropped, a running one stops at the next entry or buffer.
+     */
+    public void cancel() {
+        InstallService.get().cancel(this);
+    }
+}
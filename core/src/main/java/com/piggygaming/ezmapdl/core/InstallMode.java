@@ -0,0 +1,18 @@
+package com.piggygaming.ezmapdl.core;
+
+/**
+ * What an install does with the worlds already in the saves folder.
+ */
+public enum InstallMode {
+    /** Installs the archive as a new world, next to any earlier copy. */
+    NEW,
+    /** Replaces the installed world with a fresh copy from the archive. */
+    REPLACE,
+    /** Compares the installed world's files with the archive's CRCs and rewrites only those that differ. Zip only. */
+    VERIFY,
+    /**
+     * Updates an existing world to a newer version of its map, extracting only the entries that are
+     * new or changed. Zip only.
+     */
+    UPDATE
+}
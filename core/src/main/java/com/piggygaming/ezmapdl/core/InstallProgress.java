@@ -0,0 +1,120 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a running install, updated by extraction threads and read by the UI.
+ * Updates are plain atomic adds and volatile writes, made once per buffer, so they stay off the hot path.
+ * It also carries the cancel request, which extraction checks between entries and buffers.
+ */
+public class InstallProgress {
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicInteger entriesDone = new AtomicInteger();
+    private volatile long totalBytes;
+    private volatile int totalEntries;
+    private volatile String currentEntry = "";
+    private volatile long startNanos;
+    private volatile boolean cancelled;
+
+    /**
+     * Sets the totals from the archive's central directory and starts the clock. Calling it again
+     * starts a new phase, e.g. extracting after checking files, from zero.
+     * Totals of 0 mean they are unknown.
+     */
+    public void start(int totalEntries, long totalBytes) {
+        this.totalEntries = totalEntries;
+        this.totalBytes = totalBytes;
+        bytesWritten.set(0);
+        entriesDone.set(0);
+        this.startNanos = System.nanoTime();
+    }
+
+    public void addBytes(long bytes) {
+        bytesWritten.addAndGet(bytes);
+    }
+
+    public void entryStarted(String name) {
+        currentEntry = name;
+    }
+
+    public void entryDone() {
+        entriesDone.incrementAndGet();
+    }
+
+    /**
+     * Asks the extraction to stop at the next entry or buffer.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws InstallCancelledException if {@link #cancel()} was called
+     */
+    public void checkCancelled() throws InstallCancelledException {
+        if (cancelled) {
+            throw new InstallCancelledException();
+        }
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getEntriesDone() {
+        return entriesDone.get();
+    }
+
+    public int getTotalEntries() {
+        return totalEntries;
+    }
+
+    public String getCurrentEntry() {
+        return currentEntry;
+    }
+
+    /**
+     * Returns the completed fraction (0-1) by bytes, or -1 if the total is unknown.
+     */
+    public float getFraction() {
+        long total = totalBytes;
+        if (total <= 0) {
+            return -1;
+        }
+        return Math.min(1f, bytesWritten.get() / (float) total);
+    }
+
+    /**
+     * Returns the average write speed since the install started, in bytes per second.
+     */
+    public double getBytesPerSecond() {
+        long start = startNanos;
+        if (start == 0) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return seconds > 0 ? bytesWritten.get() / seconds : 0;
+    }
+
+    /**
+     * Returns the estimated seconds left, or -1 if it cannot be estimated yet.
+     */
+    public long getEtaSeconds() {
+        double speed = getBytesPerSecond();
+        long total = totalBytes;
+        if (speed <= 0 || total <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil(Math.max(0, total - bytesWritten.get()) / speed);
+    }
+}
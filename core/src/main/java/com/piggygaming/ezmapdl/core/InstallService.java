@@ -0,0 +1,264 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs install tasks on background threads and reports how they ended through a future.
+ *
+ * <p>Installs are queued and started as the disk they write to allows: one at a time on a disk that
+ * spins, up to {@link #setMaxConcurrentInstalls the configured number} on a solid state one (see
+ * {@link DiskProfile}). Installs running side by side split the extraction threads between them, so
+ * together they use about as many cores as one install on its own.</p>
+ */
+public class InstallService {
+
+    public static final int DEFAULT_MAX_CONCURRENT_INSTALLS = 3;
+
+    private static final InstallService INSTANCE = new InstallService();
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "EasyMapDownload-Install-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Every job not yet cleared, in the order they were queued. Guarded by this. */
+    private final List<InstallJob> jobs = new ArrayList<>();
+    /** The disk of each saves folder, looked up once. Guarded by this. */
+    private final Map<Path, DiskProfile> disks = new HashMap<>();
+    /** Saves folders whose disk is being looked up. Guarded by this. */
+    private final Set<Path> resolvingDisks = new HashSet<>();
+    private int maxConcurrentInstalls = DEFAULT_MAX_CONCURRENT_INSTALLS;
+
+    /** Staging folders already cleared of leftovers from earlier sessions. Guarded by itself, held while clearing. */
+    private final Set<Path> cleanedStagingRoots = new HashSet<>();
+
+    public static InstallService get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a task. The future completes normally on success, or exceptionally with the failure,
+     * which is an {@link InstallCancelledException} if the task was cancelled.
+     * Callbacks run on an install thread, or the caller's for a job cancelled while queued;
+     * hop to the client thread before touching screens.
+     * @throws IllegalStateException if the task's archive already has a job queued or running
+     */
+    public CompletableFuture<Void> submit(InstallTask task) {
+        return enqueue(task).getFuture();
+    }
+
+    /**
+     * Queues a task and returns its job, which tracks it until {@link #clearFinished() cleared}.
+     * @throws IllegalStateException if the task's archive already has a job queued or running
+     */
+    public InstallJob enqueue(InstallTask task) {
+        InstallJob job = new InstallJob(task);
+        Path savesPath = job.getSavesPath();
+        synchronized (this) {
+            // A second job would extract the same worlds again and race the first for their folders
+            if (isInstalling(task.getArchive())) {
+                throw new IllegalStateException(task.getArchive().getName() + " is already being installed");
+            }
+            jobs.add(job);
+            job.disk = disks.get(savesPath);
+            if (job.disk != null) {
+                schedule();
+                return job;
+            }
+            if (!resolvingDisks.add(savesPath)) {
+                return job;
+            }
+        }
+        // Telling the disk kind reads sysfs, which stays off the caller's thread
+        executor.execute(() -> {
+            DiskProfile disk = DiskProfile.of(savesPath);
+            synchronized (this) {
+                disks.put(savesPath, disk);
+                resolvingDisks.remove(savesPath);
+                for (InstallJob queued : jobs) {
+                    if (queued.disk == null && queued.getSavesPath().equals(savesPath)) {
+                        queued.disk = disk;
+                    }
+                }
+                schedule();
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Sets how many installs may run at the same time on a solid state disk. Spinning disks always take one.
+     */
+    public synchronized void setMaxConcurrentInstalls(int maxConcurrentInstalls) {
+        this.maxConcurrentInstalls = Math.max(1, maxConcurrentInstalls);
+        schedule();
+    }
+
+    /**
+     * Returns the jobs not yet cleared, oldest first.
+     */
+    public synchronized List<InstallJob> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    /**
+     * Returns how many jobs are queued or running.
+     */
+    public synchronized int countUnfinishedJobs() {
+        int unfinished = 0;
+        for (InstallJob job : jobs) {
+            if (!job.getState().isFinished()) {
+                unfinished++;
+            }
+        }
+        return unfinished;
+    }
+
+    /**
+     * Returns whether any job is queued or running.
+     */
+    public synchronized boolean hasUnfinishedJobs() {
+        for (InstallJob job : jobs) {
+            if (!job.getState().isFinished()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the archive has a job that is queued or running.
+     */
+    public synchronized boolean isInstalling(File archive) {
+        File absolute = archive.getAbsoluteFile();
+        for (InstallJob job : jobs) {
+            if (!job.getState().isFinished() && job.getTask().getArchive().getAbsoluteFile().equals(absolute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the jobs that have finished.
+     */
+    public synchronized void clearFinished() {
+        jobs.removeIf(job -> job.getState().isFinished());
+    }
+
+    void cancel(InstallJob job) {
+        synchronized (this) {
+            if (job.getState() != InstallJob.State.QUEUED) {
+                if (job.getState() == InstallJob.State.RUNNING) {
+                    job.getTask().cancel();
+                }
+                return;
+            }
+            job.setState(InstallJob.State.CANCELLED);
+            job.setError(new InstallCancelledException());
+        }
+        job.getFuture().completeExceptionally(job.getError());
+    }
+
+    /**
+     * Starts the queued jobs whose disk has room, oldest first.
+     */
+    private void schedule() {
+        boolean started = false;
+        for (InstallJob job : jobs) {
+            if (job.getState() == InstallJob.State.QUEUED && job.disk != null
+                && job.disk.running < job.disk.getLimit(maxConcurrentInstalls)) {
+                job.disk.running++;
+                job.setState(InstallJob.State.RUNNING);
+                job.startNanos = System.nanoTime();
+                executor.execute(() -> run(job));
+                started = true;
+            }
+        }
+        if (started) {
+            shareThreads();
+        }
+    }
+
+    /**
+     * Splits the extraction threads between the running jobs. A job already extracting keeps its
+     * threads until its next phase.
+     */
+    private void shareThreads() {
+        int running = 0;
+        for (InstallJob job : jobs) {
+            if (job.getState() == InstallJob.State.RUNNING) {
+                running++;
+            }
+        }
+        for (InstallJob job : jobs) {
+            if (job.getState() == InstallJob.State.RUNNING) {
+                job.getTask().setThreads(Math.max(1, job.requestedThreads / running));
+            }
+        }
+    }
+
+    private void run(InstallJob job) {
+        InstallTask task = job.getTask();
+        InstallJob.State state = InstallJob.State.SUCCEEDED;
+        try {
+            removeStaleStaging(task.getSavesDir());
+            task.run();
+        } catch (InstallCancelledException e) {
+            state = InstallJob.State.CANCELLED;
+            job.setError(e);
+        } catch (Throwable t) {
+            state = InstallJob.State.FAILED;
+            job.setError(t);
+        }
+
+        synchronized (this) {
+            job.setState(state);
+            job.disk.running--;
+            // Verifies and updates mostly read, only full extractions say how fast the disk writes
+            if (state == InstallJob.State.SUCCEEDED && (task.getMode() == InstallMode.NEW || task.getMode() == InstallMode.REPLACE)) {
+                job.disk.recordThroughput(task.getProgress().getBytesWritten(), System.nanoTime() - job.startNanos);
+            }
+            shareThreads();
+            schedule();
+        }
+        if (job.getError() == null) {
+            job.getFuture().complete(null);
+        } else {
+            job.getFuture().completeExceptionally(job.getError());
+        }
+    }
+
+    /**
+     * Deletes staging folders left behind by a crash, once per saves folder per session. Other installs
+     * into the same saves folder wait here until it is done, so their own staging is never removed.
+     */
+    private void removeStaleStaging(File savesDir) {
+        Path stagingRoot = InstallTask.getStagingRoot(savesDir);
+        synchronized (cleanedStagingRoots) {
+            if (!cleanedStagingRoots.add(stagingRoot) || !Files.isDirectory(stagingRoot)) {
+                return;
+            }
+            try {
+                InstallTask.deleteRecursively(stagingRoot);
+            } catch (IOException e) {
+                EasyMapDownloadCore.LOGGER.warn("Could not remove old staging folder " + stagingRoot, e);
+            }
+        }
+    }
+}
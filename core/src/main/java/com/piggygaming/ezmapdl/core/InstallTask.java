@@ -0,0 +1,638 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Installs one world archive, or an unpacked world folder, into the saves folder.
+ *
+ * <p>The archive is extracted (or the folder copied) into a staging folder next to saves/, flushed to
+ * disk, and only then each world folder in it is moved into saves/ with an atomic rename. The world
+ * list therefore never sees a half-written world, and a failed or cancelled install only has to delete
+ * its staging folder.</p>
+ *
+ * <p>Installed worlds are recorded in {@link InstalledWorlds}. An earlier installation can be replaced
+ * with a fresh copy, or verified against the archive; an existing world can also be updated to a newer
+ * version of its map. Verifying and updating only stage the files that differ, which are then moved
+ * over the installed ones one by one.</p>
+ */
+public class InstallTask {
+
+    /** Name of the folder next to saves/ that installs are staged in. */
+    public static final String STAGING_FOLDER = "ezmapdl-staging";
+    private static final int MAX_WORLD_SEARCH_DEPTH = 4;
+    /** One per saves folder, see {@link #placementLock(Path)}. */
+    private static final Map<Path, Object> PLACEMENT_LOCKS = new ConcurrentHashMap<>();
+
+    private final File archive;
+    private final File savesDir;
+    private final boolean deleteArchive;
+    /** Lowered by the {@link InstallService} when installs run side by side, so they share the cores. */
+    private volatile int threads;
+    private final boolean hardLinkFolders;
+    private final InstallMode mode;
+    private final InstalledWorlds.Installation target;
+    private final String updateWorld;
+    private final boolean preservePlayerData;
+    private final InstallProgress progress = new InstallProgress();
+    private final List<String> installedWorlds = Collections.synchronizedList(new ArrayList<>());
+    private volatile int filesRewritten;
+    private volatile int filesRemoved;
+    /** Time spent in each phase, for the log line. Only touched on the thread running the install. */
+    private long verifyNanos;
+    private long copyNanos;
+    private long extractNanos;
+    private long fsyncNanos;
+    private long finalizeNanos;
+
+    /**
+     * @param archive The world zip to extract, or an unpacked world folder to copy
+     * @param savesDir The saves folder to install into
+     * @param deleteArchive Whether to delete the archive after a successful install
+     * @param threads The maximum number of entries extracted at the same time
+     * @param hardLinkFolders Whether files of a world folder may be hard-linked instead of copied
+     */
+    public InstallTask(File archive, File savesDir, boolean deleteArchive, int threads, boolean hardLinkFolders) {
+        this(archive, savesDir, deleteArchive, threads, hardLinkFolders, InstallMode.NEW, null);
+    }
+
+    /**
+     * @param mode What to do with the world installed from this archive before
+     * @param target The earlier installation to replace or verify, or null for {@link InstallMode#NEW}
+     */
+    public InstallTask(File archive, File savesDir, boolean deleteArchive, int threads, boolean hardLinkFolders,
+                       InstallMode mode, InstalledWorlds.Installation target) {
+        this(archive, savesDir, deleteArchive, threads, hardLinkFolders, mode, target, null, false);
+        if (mode == InstallMode.UPDATE) {
+            throw new IllegalArgumentException("Updates name the world to update instead");
+        }
+        if (mode != InstallMode.NEW && target == null) {
+            throw new IllegalArgumentException("No installed world given for " + mode);
+        }
+    }
+
+    /**
+     * Creates an {@link InstallMode#UPDATE update} of an existing world to the version in a zip.
+     * @param updateWorld The folder name in saves/ of the world to update
+     * @param preservePlayerData Whether files in {@link WorldVerifier#PLAYER_DATA_FOLDERS} that the world already has are kept,
+     *                           along with the singleplayer player in level.dat
+     */
+    public InstallTask(File archive, File savesDir, boolean deleteArchive, int threads, String updateWorld, boolean preservePlayerData) {
+        this(archive, savesDir, deleteArchive, threads, false, InstallMode.UPDATE, null, updateWorld, preservePlayerData);
+    }
+
+    private InstallTask(File archive, File savesDir, boolean deleteArchive, int threads, boolean hardLinkFolders,
+                        InstallMode mode, InstalledWorlds.Installation target, String updateWorld, boolean preservePlayerData) {
+        this.archive = archive;
+        this.savesDir = savesDir;
+        this.deleteArchive = deleteArchive;
+        this.threads = threads;
+        this.hardLinkFolders = hardLinkFolders;
+        this.mode = mode;
+        this.target = target;
+        this.updateWorld = updateWorld;
+        this.preservePlayerData = preservePlayerData;
+    }
+
+    /**
+     * Returns the folder installs into the given saves folder are staged in.
+     */
+    public static Path getStagingRoot(File savesDir) {
+        return savesDir.getAbsoluteFile().toPath().resolveSibling(STAGING_FOLDER);
+    }
+
+    /**
+     * Runs the install on the calling thread.
+     * @throws InstallCancelledException if {@link #cancel()} was called before it finished
+     */
+    public void run() throws IOException {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            install();
+            succeeded = true;
+        } finally {
+            (succeeded ? Metrics.INSTALLS : Metrics.INSTALLS_FAILED).increment();
+            String action = switch (mode) {
+                case NEW -> "install";
+                case REPLACE -> "replace";
+                case VERIFY -> "verify";
+                case UPDATE -> "update";
+            };
+            EasyMapDownloadCore.LOGGER.info(String.format(Locale.ROOT,
+                "%s %s %s in %d ms (verify %d, copy %d, extract %d, fsync %d, finalize %d ms; %d entries, %.1f MB, %d files rewritten, %d removed)",
+                succeeded ? "Finished" : "Failed", action, archive.getName(), (System.nanoTime() - start) / 1_000_000,
+                verifyNanos / 1_000_000, copyNanos / 1_000_000, extractNanos / 1_000_000, fsyncNanos / 1_000_000, finalizeNanos / 1_000_000,
+                progress.getEntriesDone(), progress.getBytesWritten() / (1024.0 * 1024.0), filesRewritten, filesRemoved));
+        }
+    }
+
+    private void install() throws IOException {
+        if (archive.isDirectory() && deleteArchive && mode == InstallMode.NEW && moveFolderIntoPlace()) {
+            return;
+        }
+        // Read up front, the archive may be deleted once installed
+        long archiveSize = archive.length();
+        long contentDigest = archive.isFile() && ArchiveReaders.forFileOrZip(archive).isRandomAccess()
+            ? FileUtils.probeWorld(archive).getContentDigest() : 0;
+
+        Path staging = getStagingRoot(savesDir).resolve(UUID.randomUUID().toString());
+        Path content = staging.resolve("content");
+        long finalizeStart = 0;
+        try {
+            progress.checkCancelled();
+            Files.createDirectories(content);
+            if (mode == InstallMode.VERIFY || mode == InstallMode.UPDATE) {
+                String worldFolder = mode == InstallMode.VERIFY ? target.worldFolder() : updateWorld;
+                Path world = savesDir.toPath().resolve(worldFolder);
+                if (ArchiveReaders.forFileOrZip(archive) != ArchiveReaders.ZIP) {
+                    throw new IOException("Only zip archives carry the CRCs needed to compare with " + worldFolder);
+                }
+                if (!Files.isDirectory(world)) {
+                    throw new IOException("Installed world " + worldFolder + " not found");
+                }
+                String prefix = mode == InstallMode.VERIFY ? target.archivePrefix() : WorldVerifier.findWorldPrefix(archive);
+                WorldVerifier verifier = new WorldVerifier(archive, prefix, world,
+                    preservePlayerData ? WorldVerifier.PLAYER_DATA_FOLDERS : List.of());
+                List<String> changed = extractChanged(verifier, content);
+                if (preservePlayerData) {
+                    keepSingleplayerPlayer(verifier, content, prefix + "level.dat", changed);
+                }
+
+                progress.checkCancelled();
+                finalizeStart = System.nanoTime();
+                for (String name : changed) {
+                    Path installed = verifier.getInstalledFile(name).toPath();
+                    Files.createDirectories(installed.getParent());
+                    replaceFile(FileUtils.newFile(content.toFile(), name).toPath(), installed);
+                    filesRewritten++;
+                }
+                recordWorldFiles(verifier, world);
+                installedWorlds.add(worldFolder);
+                if (mode == InstallMode.UPDATE) {
+                    // The world now matches this version, so it shows as installed from it
+                    InstalledWorlds.get(savesDir).addAll(List.of(new InstalledWorlds.Installation(worldFolder, archive.getName(),
+                        archiveSize, contentDigest, prefix, System.currentTimeMillis())));
+                }
+            } else {
+                List<Path> worlds = extractWorlds(content);
+
+                progress.checkCancelled();
+                finalizeStart = System.nanoTime();
+                Files.createDirectories(savesDir.toPath());
+                List<InstalledWorlds.Installation> installations = new ArrayList<>();
+                for (Path world : worlds) {
+                    WorldManifest.write(world, WorldManifest.list(world));
+                    Path placed;
+                    if (mode == InstallMode.REPLACE) {
+                        placed = savesDir.toPath().resolve(target.worldFolder());
+                        replaceWorld(world, placed);
+                    } else {
+                        String name = world.equals(content) ? ArchiveReaders.forFileOrZip(archive).baseName(archive.getName()) : world.getFileName().toString();
+                        // Another install may be picking a name in the same saves folder
+                        synchronized (placementLock(savesDir.toPath())) {
+                            placed = uniqueWorldPath(savesDir.toPath(), name);
+                            moveIntoPlace(world, placed);
+                        }
+                    }
+                    String folder = placed.getFileName().toString();
+                    installedWorlds.add(folder);
+                    installations.add(new InstalledWorlds.Installation(folder, archive.getName(), archiveSize, contentDigest,
+                        archivePrefix(content, world), System.currentTimeMillis()));
+                }
+                syncDirectory(savesDir.toPath());
+                // Folders have nothing to recognise them by later, only archives are recorded
+                if (archive.isFile()) {
+                    InstalledWorlds.get(savesDir).addAll(installations);
+                }
+            }
+        } finally {
+            try {
+                deleteRecursively(staging);
+            } catch (IOException e) {
+                EasyMapDownloadCore.LOGGER.warn("Could not remove staging folder " + staging, e);
+            }
+        }
+
+        // A verified archive is still the reference for the world, so it stays
+        if (deleteArchive && mode != InstallMode.VERIFY) {
+            try {
+                deleteRecursively(archive.toPath());
+            } catch (IOException e) {
+                EasyMapDownloadCore.LOGGER.warn("Could not delete installed archive " + archive, e);
+            }
+        }
+        finalizeNanos += Metrics.INSTALL_FINALIZE.recordSince(finalizeStart);
+    }
+
+    /**
+     * Extracts or copies the source into the staging content folder and flushes it to disk.
+     * A replace only extracts the folder of the world it replaces.
+     * @return The world folders in the content folder
+     */
+    private List<Path> extractWorlds(Path content) throws IOException {
+        long start = System.nanoTime();
+        if (archive.isDirectory()) {
+            new WorldFolderCopier(threads, hardLinkFolders).copy(archive.toPath(), content.resolve(archive.getName()), progress);
+            copyNanos += Metrics.INSTALL_COPY.recordSince(start);
+        } else if (mode == InstallMode.REPLACE) {
+            String prefix = target.archivePrefix();
+            FileUtils.unzipFile(archive.getPath(), content.toFile(), threads, progress, name -> name.startsWith(prefix));
+            extractNanos += Metrics.INSTALL_EXTRACT.recordSince(start);
+        } else {
+            FileUtils.unzipFile(archive.getPath(), content.toFile(), threads, progress);
+            extractNanos += Metrics.INSTALL_EXTRACT.recordSince(start);
+        }
+
+        progress.checkCancelled();
+        List<Path> worlds;
+        if (mode == InstallMode.REPLACE) {
+            Path world = content.resolve(target.archivePrefix());
+            if (!Files.isRegularFile(world.resolve("level.dat"))) {
+                throw new IOException(archive.getName() + " no longer holds the world installed as " + target.worldFolder());
+            }
+            worlds = List.of(world);
+        } else {
+            worlds = findWorlds(content);
+            if (worlds.isEmpty()) {
+                throw new IOException("No level.dat found in " + archive.getName());
+            }
+        }
+        start = System.nanoTime();
+        syncTree(content);
+        fsyncNanos += Metrics.INSTALL_FSYNC.recordSince(start);
+        return worlds;
+    }
+
+    /**
+     * Checks the installed world against the archive and extracts the files that differ into the
+     * staging content folder, flushed to disk.
+     * @return The names of the extracted entries
+     */
+    private List<String> extractChanged(WorldVerifier verifier, Path content) throws IOException {
+        long start = System.nanoTime();
+        List<String> changed = verifier.findChangedEntries(progress);
+        verifyNanos += Metrics.INSTALL_VERIFY.recordSince(start);
+        if (changed.isEmpty()) {
+            return changed;
+        }
+
+        progress.checkCancelled();
+        Set<String> names = new HashSet<>(changed);
+        start = System.nanoTime();
+        FileUtils.unzipFile(archive.getPath(), content.toFile(), threads, progress, names::contains);
+        extractNanos += Metrics.INSTALL_EXTRACT.recordSince(start);
+        start = System.nanoTime();
+        syncTree(content);
+        fsyncNanos += Metrics.INSTALL_FSYNC.recordSince(start);
+        return changed;
+    }
+
+    /**
+     * Puts the installed world's singleplayer player, which lives in level.dat rather than playerdata/,
+     * into the staged level.dat of the new version.
+     */
+    /**
+     * Records the archive's files as the world's files. An update first deletes the files the previous
+     * install recorded that the new version no longer has, outside the preserved folders, so the world
+     * does not end up a mix of both versions. A world installed before files were recorded has nothing
+     * to compare with: nothing is deleted, and the update or a verify starts its record.
+     */
+    private void recordWorldFiles(WorldVerifier verifier, Path world) throws IOException {
+        Set<String> current = new LinkedHashSet<>();
+        Set<String> currentLowerCase = new HashSet<>();
+        for (String name : verifier.listWorldFiles()) {
+            // Stored the way extraction names the file on disk
+            String file = name.replace(":", "");
+            current.add(file);
+            currentLowerCase.add(file.toLowerCase(Locale.ROOT));
+        }
+        Set<String> previous = WorldManifest.read(world);
+        if (previous == null || mode == InstallMode.UPDATE) {
+            if (previous != null) {
+                for (String name : previous) {
+                    // On case-insensitive disks a file the new version only renamed must not be deleted
+                    if (currentLowerCase.contains(name.toLowerCase(Locale.ROOT)) || verifier.isPreservedFile(name)) {
+                        continue;
+                    }
+                    deleteDroppedFile(world, name);
+                }
+            }
+            WorldManifest.write(world, current);
+        }
+    }
+
+    /**
+     * Deletes a file an earlier version of the map installed, and the folders it leaves empty.
+     */
+    private void deleteDroppedFile(Path world, String name) throws IOException {
+        Path file = FileUtils.newFile(world.toFile(), name).toPath();
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) || !Files.deleteIfExists(file)) {
+            return;
+        }
+        filesRemoved++;
+        for (Path parent = file.getParent(); parent != null && !parent.equals(world); parent = parent.getParent()) {
+            try {
+                Files.delete(parent);
+            } catch (IOException e) {
+                // Not empty, or not ours to remove
+                break;
+            }
+        }
+    }
+
+    private static void keepSingleplayerPlayer(WorldVerifier verifier, Path content, String levelDat, List<String> changed) throws IOException {
+        File installed = verifier.getInstalledFile(levelDat);
+        if (changed.contains(levelDat) && installed.isFile()) {
+            LevelDatPlayer.carryOver(installed.toPath(), FileUtils.newFile(content.toFile(), levelDat).toPath());
+        }
+    }
+
+    /**
+     * Returns the folder of a world inside the archive, as recorded in {@link InstalledWorlds.Installation#archivePrefix()}.
+     */
+    private static String archivePrefix(Path content, Path world) {
+        if (world.equals(content)) {
+            return "";
+        }
+        return content.relativize(world).toString().replace(File.separatorChar, '/') + "/";
+    }
+
+    /**
+     * Puts a freshly extracted world where an installed one is. The new world is first brought into
+     * saves/ under a temporary name, then the two are swapped with renames inside saves/, so the old
+     * world is only deleted once the new one is in place and a failure at any step leaves it as it was.
+     */
+    private static void replaceWorld(Path world, Path installed) throws IOException {
+        if (!Files.exists(installed)) {
+            moveIntoPlace(world, installed);
+            return;
+        }
+        String suffix = "." + UUID.randomUUID();
+        Path incoming = installed.resolveSibling(installed.getFileName() + suffix + ".new");
+        Path old = installed.resolveSibling(installed.getFileName() + suffix + ".old");
+        try {
+            moveIntoPlace(world, incoming);
+            Files.move(installed, old);
+        } catch (IOException e) {
+            deleteQuietly(incoming);
+            throw e;
+        }
+        try {
+            Files.move(incoming, installed);
+        } catch (IOException e) {
+            Files.move(old, installed);
+            deleteQuietly(incoming);
+            throw e;
+        }
+        deleteQuietly(old);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            deleteRecursively(path);
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.warn("Could not remove " + path, e);
+        }
+    }
+
+    /**
+     * Moves a staged file over an installed one, atomically where the filesystem allows.
+     */
+    private static void replaceFile(Path staged, Path installed) throws IOException {
+        try {
+            Files.move(staged, installed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged, installed, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Installs a world folder that is deleted afterwards by renaming it into saves/, which takes no
+     * copying when both are on the same filesystem.
+     * @return false if the folder is on another filesystem and has to be copied
+     */
+    private boolean moveFolderIntoPlace() throws IOException {
+        progress.checkCancelled();
+        Files.createDirectories(savesDir.toPath());
+        Path target;
+        long start = System.nanoTime();
+        synchronized (placementLock(savesDir.toPath())) {
+            target = uniqueWorldPath(savesDir.toPath(), archive.getName());
+            try {
+                Files.move(archive.toPath(), target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                return false;
+            }
+        }
+        copyNanos += Metrics.INSTALL_COPY.recordSince(start);
+        installedWorlds.add(target.getFileName().toString());
+        start = System.nanoTime();
+        syncDirectory(savesDir.toPath());
+        fsyncNanos += Metrics.INSTALL_FSYNC.recordSince(start);
+        return true;
+    }
+
+    /**
+     * Returns the folders holding a level.dat: the extracted content itself for archives with
+     * level.dat at the root, otherwise the world folders inside it.
+     */
+    private static List<Path> findWorlds(Path content) throws IOException {
+        List<Path> worlds = new ArrayList<>();
+        Files.walkFileTree(content, EnumSet.noneOf(FileVisitOption.class), MAX_WORLD_SEARCH_DEPTH,
+            new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (Files.isRegularFile(dir.resolve("level.dat"))) {
+                        worlds.add(dir);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        return worlds;
+    }
+
+    /**
+     * Flushes every extracted file to disk so the rename cannot expose unwritten data after a crash.
+     */
+    private void syncTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                progress.checkCancelled();
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Makes the renames durable where the platform allows syncing a directory.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform (e.g. Windows); the renames themselves are still atomic
+        }
+    }
+
+    /**
+     * Returns the lock held while a world's folder name is picked and the world moved there, so that
+     * installs running side by side never pick the same free name.
+     */
+    private static Object placementLock(Path savesDir) {
+        return PLACEMENT_LOCKS.computeIfAbsent(savesDir.toAbsolutePath().normalize(), dir -> new Object());
+    }
+
+    /**
+     * Picks a free folder name the way the vanilla world list does: {@code World}, {@code World (1)}, ...
+     */
+    static Path uniqueWorldPath(Path savesDir, String name) {
+        String base = name.replaceAll("[\\\\/:*?\"<>|]", "_").trim();
+        if (base.isEmpty()) {
+            base = "World";
+        }
+        Path candidate = savesDir.resolve(base);
+        for (int i = 1; Files.exists(candidate); i++) {
+            candidate = savesDir.resolve(base + " (" + i + ")");
+        }
+        return candidate;
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staging ended up on another filesystem, copy and then drop the staged copy
+            EasyMapDownloadCore.LOGGER.warn("Atomic move not supported, copying " + source.getFileName() + " into saves");
+            copyRecursively(source, target);
+        }
+    }
+
+    /**
+     * Copies a world folder, writing its level.dat last so the world list only picks it up once complete.
+     */
+    private static void copyRecursively(Path source, Path target) throws IOException {
+        Path levelDat = source.resolve("level.dat");
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else if (!path.equals(levelDat)) {
+                    Files.copy(path, destination, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+        Files.copy(levelDat, target.resolve("level.dat"), StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Asks the install to stop. Extraction notices between entries and buffers.
+     */
+    public void cancel() {
+        progress.cancel();
+    }
+
+    public InstallProgress getProgress() {
+        return progress;
+    }
+
+    public File getArchive() {
+        return archive;
+    }
+
+    public File getSavesDir() {
+        return savesDir;
+    }
+
+    public InstallMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the maximum number of entries extracted at the same time.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Changes the number of extraction threads. Takes effect at the next extraction or copy the task starts.
+     */
+    void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Returns how many files an update removed because the new version of the map no longer has them.
+     */
+    public int getFilesRemoved() {
+        return filesRemoved;
+    }
+
+    /**
+     * Returns how many files a verify or update found to differ and rewrote.
+     */
+    public int getFilesRewritten() {
+        return filesRewritten;
+    }
+
+    /**
+     * Returns the folder names in saves/ this install created, replaced or verified, once it has finished.
+     */
+    public List<String> getInstalledWorlds() {
+        synchronized (installedWorlds) {
+            return new ArrayList<>(installedWorlds);
+        }
+    }
+}
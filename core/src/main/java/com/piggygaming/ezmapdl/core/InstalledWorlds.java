@@ -0,0 +1,203 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Remembers which archive each world in a saves folder was installed from, so installing the same
+ * archive again is noticed before anything is extracted.
+ *
+ * <p>Archives are recognised by size and content digest, so a renamed or re-downloaded copy of an
+ * archive still matches. Formats without a digest (tar) fall back to name and size. The file sits in
+ * the saves folder itself, which the game's world list ignores as it is not a folder, and is small
+ * enough to be rewritten whole on every change.</p>
+ */
+public class InstalledWorlds {
+
+    /** Name of the index file inside the saves folder. */
+    public static final String FILE_NAME = "ezmapdl-installed.bin";
+
+    private static final int MAGIC = 0x455A4D57; // "EZMW"
+    private static final int VERSION = 1;
+
+    private static final Map<Path, InstalledWorlds> LOADED = new ConcurrentHashMap<>();
+    private static final ExecutorService LOOKUP_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EasyMapDownload-Installed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path savesDir;
+    private final Path file;
+    /** Installations by world folder name. Guarded by this. */
+    private final Map<String, Installation> installations = new LinkedHashMap<>();
+
+    private InstalledWorlds(Path savesDir) {
+        this.savesDir = savesDir;
+        this.file = savesDir.resolve(FILE_NAME);
+    }
+
+    /**
+     * One world in the saves folder and the archive it came from.
+     * @param worldFolder The world's folder name in saves/
+     * @param sourceName The archive's file name at install time
+     * @param sourceSize The archive's size in bytes
+     * @param contentDigest The archive's {@link WorldProbe#getContentDigest() content digest}, or 0 if it has none
+     * @param archivePrefix The folder inside the archive the world was in, with a trailing slash, or "" for the root
+     * @param installedAt When the world was installed, in epoch milliseconds
+     */
+    public record Installation(String worldFolder, String sourceName, long sourceSize, long contentDigest,
+                               String archivePrefix, long installedAt) {
+
+        /**
+         * Returns true if the world was installed from an archive with the same content.
+         */
+        public boolean matches(File archive, WorldProbe probe) {
+            if (archive.length() != sourceSize) {
+                return false;
+            }
+            if (contentDigest != 0 && probe.getContentDigest() != 0) {
+                return contentDigest == probe.getContentDigest();
+            }
+            return archive.getName().equals(sourceName);
+        }
+    }
+
+    /**
+     * Returns the shared index of a saves folder, loading it on first use.
+     * This does disk I/O, so call it from a background thread.
+     */
+    public static InstalledWorlds get(File savesDir) {
+        return LOADED.computeIfAbsent(savesDir.getAbsoluteFile().toPath(), InstalledWorlds::load);
+    }
+
+    private static InstalledWorlds load(Path savesDir) {
+        InstalledWorlds index = new InstalledWorlds(savesDir);
+        if (!Files.isRegularFile(index.file)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index.file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                EasyMapDownloadCore.LOGGER.info("Ignoring installed worlds index with unknown format: " + index.file);
+                return index;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Installation installation = new Installation(in.readUTF(), in.readUTF(), in.readLong(), in.readLong(),
+                    in.readUTF(), in.readLong());
+                index.installations.put(installation.worldFolder(), installation);
+            }
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.warn("Could not read installed worlds index " + index.file + ", starting a new one", e);
+            index.installations.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Returns the worlds installed from an archive with the same content that are still in the saves folder.
+     */
+    public synchronized List<Installation> find(File archive, WorldProbe probe) {
+        List<Installation> found = new ArrayList<>();
+        for (Installation installation : installations.values()) {
+            if (installation.matches(archive, probe) && isInstalled(installation)) {
+                found.add(installation);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks up many archives at once on a background thread, probing them through the world index.
+     * @param indexFile The {@link WorldIndex} file, so archives the scan already probed are not opened again
+     * @return The installations of each archive that has any
+     */
+    public static CompletableFuture<Map<File, List<Installation>>> findAll(File savesDir, List<File> archives, Path indexFile) {
+        List<File> snapshot = List.copyOf(archives);
+        return CompletableFuture.supplyAsync(() -> {
+            InstalledWorlds installed = get(savesDir);
+            Map<File, List<Installation>> found = new HashMap<>();
+            if (installed.isEmpty()) {
+                return found;
+            }
+            WorldIndex index = WorldIndex.get(indexFile);
+            for (File archive : snapshot) {
+                if (!archive.isFile()) {
+                    // Folders are not recorded, there is nothing to fingerprint them by
+                    continue;
+                }
+                List<Installation> matches = installed.find(archive, index.probe(archive));
+                if (!matches.isEmpty()) {
+                    found.put(archive, matches);
+                }
+            }
+            index.flush();
+            return found;
+        }, LOOKUP_EXECUTOR);
+    }
+
+    /**
+     * Records installed worlds, replacing any earlier records for their folders, and saves the index.
+     */
+    public synchronized void addAll(List<Installation> added) {
+        for (Installation installation : added) {
+            installations.put(installation.worldFolder(), installation);
+        }
+        save();
+    }
+
+    private synchronized boolean isEmpty() {
+        return installations.isEmpty();
+    }
+
+    private boolean isInstalled(Installation installation) {
+        return Files.isRegularFile(savesDir.resolve(installation.worldFolder()).resolve("level.dat"));
+    }
+
+    /**
+     * Rewrites the index, dropping worlds that were deleted or renamed since they were installed.
+     */
+    private void save() {
+        installations.values().removeIf(installation -> !isInstalled(installation));
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(installations.size());
+                for (Installation installation : installations.values()) {
+                    out.writeUTF(installation.worldFolder());
+                    out.writeUTF(installation.sourceName());
+                    out.writeLong(installation.sourceSize());
+                    out.writeLong(installation.contentDigest());
+                    out.writeUTF(installation.archivePrefix());
+                    out.writeLong(installation.installedAt());
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.warn("Could not write installed worlds index " + file, e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.piggygaming.ezmapdl.core;
+
+/**
+ * Where a world's level.dat was found inside an archive.
+ */
+public enum LevelDatLocation {
+    /** No level.dat, the archive is not a world. */
+    NONE,
+    /** level.dat sits at the archive root, the archive is the world folder itself. */
+    ROOT,
+    /** level.dat sits inside a folder, the archive contains the world folder. */
+    NESTED;
+
+    public boolean isWorld() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,200 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.piggygaming.ezmapdl.core.LevelDatReader.*;
+
+/**
+ * Carries the singleplayer player, which Minecraft keeps in level.dat's {@code Data.Player} rather
+ * than in playerdata/, from an installed world into the level.dat of a newer version of its map.
+ *
+ * <p>Compounds end with a marker instead of recording their length, so the tag is moved as raw
+ * bytes: the new level.dat's own Player tag is cut out and the installed one put in its place.</p>
+ */
+final class LevelDatPlayer {
+
+    /** Larger level.dat files are not worth the memory, and are likely not level.dat at all. */
+    private static final int MAX_SIZE = 32 * 1024 * 1024;
+    private static final int MAX_DEPTH = 512;
+    private static final byte[] DATA = "Data".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PLAYER = "Player".getBytes(StandardCharsets.UTF_8);
+
+    private LevelDatPlayer() {
+    }
+
+    /**
+     * Rewrites the new level.dat with the installed world's player, and flushes it to disk.
+     * @return false if the installed level.dat has no player, leaving the new one untouched
+     */
+    static boolean carryOver(Path installedLevelDat, Path newLevelDat) throws IOException {
+        byte[] installed = readNbt(installedLevelDat);
+        int[] player = findPlayer(installed);
+        if (player[0] < 0) {
+            return false;
+        }
+        byte[] updated = readNbt(newLevelDat);
+        int[] replaced = findPlayer(updated);
+        // Without a Player tag of its own, the installed one goes right before Data's end marker
+        int cutStart = replaced[0] >= 0 ? replaced[0] : replaced[1];
+        int cutEnd = replaced[1];
+
+        try (FileChannel channel = FileChannel.open(newLevelDat, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Minecraft writes level.dat gzipped, whatever the archive held
+            GZIPOutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel));
+            out.write(updated, 0, cutStart);
+            out.write(installed, player[0], player[1] - player[0]);
+            out.write(updated, cutEnd, updated.length - cutEnd);
+            out.finish();
+            channel.force(true);
+        }
+        return true;
+    }
+
+    /**
+     * Reads a level.dat, gzipped as Minecraft writes it or uncompressed, into its raw NBT.
+     */
+    private static byte[] readNbt(Path levelDat) throws IOException {
+        try (BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(levelDat), 8192)) {
+            buffered.mark(2);
+            boolean gzipped = buffered.read() == 0x1f && buffered.read() == 0x8b;
+            buffered.reset();
+            InputStream in = gzipped ? new GZIPInputStream(buffered, 8192) : buffered;
+            ByteArrayOutputStream nbt = new ByteArrayOutputStream();
+            in.transferTo(new LimitedOutputStream(nbt));
+            return nbt.toByteArray();
+        }
+    }
+
+    /**
+     * Returns where the {@code Data.Player} tag starts and ends, its type byte and name included.
+     * Without one, the start is -1 and the end is where Data's end marker is.
+     */
+    private static int[] findPlayer(byte[] nbt) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(nbt);
+        try {
+            if (buffer.get() != TAG_COMPOUND) {
+                throw new IOException("level.dat does not start with a compound tag");
+            }
+            skipString(buffer);
+            byte type;
+            while ((type = buffer.get()) != TAG_END) {
+                // The name is read whatever the type, so the payload comes next
+                boolean named = nameIs(buffer, DATA);
+                if (type == TAG_COMPOUND && named) {
+                    while (true) {
+                        int start = buffer.position();
+                        byte childType = buffer.get();
+                        if (childType == TAG_END) {
+                            return new int[]{-1, start};
+                        }
+                        boolean player = nameIs(buffer, PLAYER) && childType == TAG_COMPOUND;
+                        skipPayload(buffer, childType, 2);
+                        if (player) {
+                            return new int[]{start, buffer.position()};
+                        }
+                    }
+                }
+                skipPayload(buffer, type, 1);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated level.dat");
+        }
+        throw new IOException("level.dat has no Data compound");
+    }
+
+    /**
+     * Reads a tag name and tells whether it is the given one.
+     */
+    private static boolean nameIs(ByteBuffer buffer, byte[] name) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        boolean matches = length == name.length;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get();
+            matches &= i >= name.length || b == name[i];
+        }
+        return matches;
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        skip(buffer, Short.toUnsignedInt(buffer.getShort()));
+    }
+
+    private static void skip(ByteBuffer buffer, long bytes) {
+        if (bytes < 0 || bytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + (int) bytes);
+    }
+
+    private static void skipPayload(ByteBuffer buffer, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("level.dat is nested too deeply");
+        }
+        switch (type) {
+            case TAG_BYTE -> skip(buffer, 1);
+            case TAG_SHORT -> skip(buffer, 2);
+            case TAG_INT, TAG_FLOAT -> skip(buffer, 4);
+            case TAG_LONG, TAG_DOUBLE -> skip(buffer, 8);
+            case TAG_BYTE_ARRAY -> skip(buffer, buffer.getInt());
+            case TAG_STRING -> skipString(buffer);
+            case TAG_INT_ARRAY -> skip(buffer, buffer.getInt() * 4L);
+            case TAG_LONG_ARRAY -> skip(buffer, buffer.getInt() * 8L);
+            case TAG_LIST -> {
+                byte elementType = buffer.get();
+                int length = buffer.getInt();
+                for (int i = 0; i < length; i++) {
+                    skipPayload(buffer, elementType, depth + 1);
+                }
+            }
+            case TAG_COMPOUND -> {
+                byte childType;
+                while ((childType = buffer.get()) != TAG_END) {
+                    skipString(buffer);
+                    skipPayload(buffer, childType, depth + 1);
+                }
+            }
+            default -> throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    /**
+     * Stops copying once more than {@link #MAX_SIZE} bytes were written, so a gzip bomb cannot fill the heap.
+     */
+    private static final class LimitedOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long written;
+
+        LimitedOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            written += length;
+            if (written > MAX_SIZE) {
+                throw new IOException("level.dat is too large");
+            }
+            out.write(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the few level.dat tags the install list shows, straight out of a world archive.
+ *
+ * <p>The NBT is parsed as a stream: wanted tags are read, every other tag is skipped without being
+ * built, and reading stops as soon as all wanted tags were seen, so large player compounds are
+ * usually never inflated.</p>
+ */
+public final class LevelDatReader {
+
+    static final byte TAG_END = 0;
+    static final byte TAG_BYTE = 1;
+    static final byte TAG_SHORT = 2;
+    static final byte TAG_INT = 3;
+    static final byte TAG_LONG = 4;
+    static final byte TAG_FLOAT = 5;
+    static final byte TAG_DOUBLE = 6;
+    static final byte TAG_BYTE_ARRAY = 7;
+    static final byte TAG_STRING = 8;
+    static final byte TAG_LIST = 9;
+    static final byte TAG_COMPOUND = 10;
+    static final byte TAG_INT_ARRAY = 11;
+    static final byte TAG_LONG_ARRAY = 12;
+
+    private static final int MAX_DEPTH = 512;
+    private static final int WANTED_TAGS = 7;
+
+    private static final byte[] DATA = bytes("Data");
+    private static final byte[] LEVEL_NAME = bytes("LevelName");
+    private static final byte[] VERSION = bytes("Version");
+    private static final byte[] NAME = bytes("Name");
+    private static final byte[] GAME_TYPE = bytes("GameType");
+    private static final byte[] HARDCORE = bytes("hardcore");
+    private static final byte[] ALLOW_COMMANDS = bytes("allowCommands");
+    private static final byte[] LAST_PLAYED = bytes("LastPlayed");
+    private static final byte[] DATA_VERSION = bytes("DataVersion");
+
+    private final DataInputStream in;
+    private byte[] nameBuffer = new byte[64];
+    private int nameLength;
+
+    private String levelName;
+    private String versionName;
+    private int gameType;
+    private boolean hardcore;
+    private boolean allowCommands;
+    private long lastPlayed;
+    private int dataVersion;
+    private int found;
+
+    private LevelDatReader(DataInputStream in) {
+        this.in = in;
+    }
+
+    private static byte[] bytes(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the metadata of the world in an archive without extracting anything, or of an unpacked world folder.
+     * @throws IOException if the archive has no level.dat or it cannot be parsed
+     */
+    public static WorldMetadata read(File archive) throws IOException {
+        if (archive.isDirectory()) {
+            try (InputStream stream = new FileInputStream(new File(archive, "level.dat"))) {
+                return read(stream);
+            }
+        }
+        try (InputStream stream = ArchiveReaders.forFileOrZip(archive).openWorldFile(archive, "level.dat")) {
+            if (stream == null) {
+                throw new IOException("No level.dat in " + archive.getName());
+            }
+            return read(stream);
+        }
+    }
+
+    /**
+     * Reads the metadata from a level.dat stream, gzipped as Minecraft writes it or uncompressed.
+     */
+    public static WorldMetadata read(InputStream levelDat) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(levelDat, 8192);
+        buffered.mark(2);
+        boolean gzipped = buffered.read() == 0x1f && buffered.read() == 0x8b;
+        buffered.reset();
+        InputStream nbt = gzipped ? new GZIPInputStream(buffered, 8192) : buffered;
+
+        LevelDatReader reader = new LevelDatReader(new DataInputStream(nbt));
+        reader.readRoot();
+        return new WorldMetadata(reader.levelName, reader.versionName, reader.gameType, reader.hardcore,
+            reader.allowCommands, reader.lastPlayed, reader.dataVersion);
+    }
+
+    private void readRoot() throws IOException {
+        if (in.readByte() != TAG_COMPOUND) {
+            throw new IOException("level.dat does not start with a compound tag");
+        }
+        skipName();
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            readName();
+            if (type == TAG_COMPOUND && nameIs(DATA)) {
+                readData();
+                return;
+            }
+            skipPayload(type, 1);
+        }
+        throw new IOException("level.dat has no Data compound");
+    }
+
+    private void readData() throws IOException {
+        byte type;
+        while (found < WANTED_TAGS && (type = in.readByte()) != TAG_END) {
+            readName();
+            if (type == TAG_STRING && nameIs(LEVEL_NAME)) {
+                levelName = in.readUTF();
+                found++;
+            } else if (type == TAG_COMPOUND && nameIs(VERSION)) {
+                readVersion();
+            } else if (type == TAG_INT && nameIs(GAME_TYPE)) {
+                gameType = in.readInt();
+                found++;
+            } else if (type == TAG_BYTE && nameIs(HARDCORE)) {
+                hardcore = in.readByte() != 0;
+                found++;
+            } else if (type == TAG_BYTE && nameIs(ALLOW_COMMANDS)) {
+                allowCommands = in.readByte() != 0;
+                found++;
+            } else if (type == TAG_LONG && nameIs(LAST_PLAYED)) {
+                lastPlayed = in.readLong();
+                found++;
+            } else if (type == TAG_INT && nameIs(DATA_VERSION)) {
+                dataVersion = in.readInt();
+                found++;
+            } else {
+                skipPayload(type, 1);
+            }
+        }
+    }
+
+    private void readVersion() throws IOException {
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            readName();
+            if (type == TAG_STRING && nameIs(NAME)) {
+                versionName = in.readUTF();
+                found++;
+            } else {
+                skipPayload(type, 2);
+            }
+        }
+    }
+
+    private void readName() throws IOException {
+        nameLength = in.readUnsignedShort();
+        if (nameBuffer.length < nameLength) {
+            nameBuffer = new byte[nameLength];
+        }
+        in.readFully(nameBuffer, 0, nameLength);
+    }
+
+    private void skipName() throws IOException {
+        in.skipNBytes(in.readUnsignedShort());
+    }
+
+    private boolean nameIs(byte[] name) {
+        if (nameLength != name.length) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (nameBuffer[i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipPayload(byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("level.dat is nested too deeply");
+        }
+        switch (type) {
+            case TAG_BYTE -> in.skipNBytes(1);
+            case TAG_SHORT -> in.skipNBytes(2);
+            case TAG_INT, TAG_FLOAT -> in.skipNBytes(4);
+            case TAG_LONG, TAG_DOUBLE -> in.skipNBytes(8);
+            case TAG_BYTE_ARRAY -> in.skipNBytes(readLength());
+            case TAG_STRING -> in.skipNBytes(in.readUnsignedShort());
+            case TAG_INT_ARRAY -> in.skipNBytes(readLength() * 4L);
+            case TAG_LONG_ARRAY -> in.skipNBytes(readLength() * 8L);
+            case TAG_LIST -> {
+                byte elementType = in.readByte();
+                int length = readLength();
+                for (int i = 0; i < length; i++) {
+                    skipPayload(elementType, depth + 1);
+                }
+            }
+            case TAG_COMPOUND -> {
+                byte childType;
+                while ((childType = in.readByte()) != TAG_END) {
+                    skipName();
+                    skipPayload(childType, depth + 1);
+                }
+            }
+            default -> throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private int readLength() throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative NBT length");
+        }
+        return length;
+    }
+}
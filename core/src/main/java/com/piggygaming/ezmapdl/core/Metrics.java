@@ -0,0 +1,257 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and timers for scanning and installs.
+ *
+ * <p>Every metric is a static field created once, and recording only adds to striped adders, so it
+ * allocates nothing and can stay on all the time. Snapshots (JSON, the log summary) are built on demand.</p>
+ */
+public final class Metrics {
+
+    private static final List<Metric> REGISTRY = new ArrayList<>();
+
+    /** Opening an archive file for reading. */
+    public static final Timer ARCHIVE_OPEN = timer("archive.open");
+    /** Locating and walking zip central directories, both while scanning and before extracting; one per opened archive. */
+    public static final Timer CENTRAL_DIRECTORY_PARSE = timer("archive.central_directory_parse");
+
+    public static final Counter SCAN_CANDIDATES = counter("scan.candidates");
+    public static final Counter SCAN_WORLDS = counter("scan.worlds");
+    public static final Counter SCAN_NOT_WORLDS = counter("scan.not_worlds");
+    public static final Counter SCAN_FAILED = counter("scan.failed");
+    public static final Counter SCAN_INDEX_HITS = counter("scan.index_hits");
+    /** A whole scan, from listing the folder to the last archive validated. */
+    public static final Timer SCAN = timer("scan.total");
+
+    /** Comparing an installed world's files with the archive's CRCs. */
+    public static final Timer INSTALL_VERIFY = timer("install.verify");
+    /** Copying or moving an unpacked world folder into staging or saves. */
+    public static final Timer INSTALL_COPY = timer("install.copy");
+    public static final Timer INSTALL_EXTRACT = timer("install.extract");
+    public static final Timer INSTALL_FSYNC = timer("install.fsync");
+    /** Moving worlds from staging into saves and cleaning up afterwards. */
+    public static final Timer INSTALL_FINALIZE = timer("install.finalize");
+    public static final Counter INSTALLS = counter("install.count");
+    public static final Counter INSTALLS_FAILED = counter("install.failed");
+
+    /** Archive or source folder bytes read while installing. */
+    public static final Counter BYTES_READ = counter("install.bytes_read");
+    public static final Counter BYTES_WRITTEN = counter("install.bytes_written");
+    public static final Counter ENTRIES_WRITTEN = counter("install.entries_written");
+    /** The most buffer memory one extraction or copy had allocated at a time. */
+    public static final Maximum PEAK_BUFFER_BYTES = maximum("install.peak_buffer_bytes");
+
+    private Metrics() {
+    }
+
+    private static Timer timer(String name) {
+        return register(new Timer(name));
+    }
+
+    private static Counter counter(String name) {
+        return register(new Counter(name));
+    }
+
+    private static Maximum maximum(String name) {
+        return register(new Maximum(name));
+    }
+
+    private static <T extends Metric> T register(T metric) {
+        REGISTRY.add(metric);
+        return metric;
+    }
+
+    public static List<Metric> all() {
+        return Collections.unmodifiableList(REGISTRY);
+    }
+
+    public static void reset() {
+        for (Metric metric : REGISTRY) {
+            metric.reset();
+        }
+    }
+
+    /**
+     * Returns all metrics as a JSON object keyed by metric name.
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        for (int i = 0; i < REGISTRY.size(); i++) {
+            Metric metric = REGISTRY.get(i);
+            json.append("  \"").append(metric.getName()).append("\": ");
+            metric.appendJson(json);
+            json.append(i < REGISTRY.size() - 1 ? ",\n" : "\n");
+        }
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Writes {@link #toJson()} to a file, replacing it atomically where the filesystem allows.
+     */
+    public static void writeJson(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, toJson(), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns a one-line summary of the totals, for the log.
+     */
+    public static String summary() {
+        return String.format(Locale.ROOT, "scans=%d candidates=%d worlds=%d not_worlds=%d failed=%d index_hits=%d open=%.1fms cd_parse=%.1fms | "
+                + "installs=%d failed=%d verify=%.1fms copy=%.1fms extract=%.1fms fsync=%.1fms finalize=%.1fms read=%.1fMB written=%.1fMB entries=%d peak_buffer=%.1fMB",
+            SCAN.getCount(), SCAN_CANDIDATES.get(), SCAN_WORLDS.get(), SCAN_NOT_WORLDS.get(), SCAN_FAILED.get(), SCAN_INDEX_HITS.get(),
+            ARCHIVE_OPEN.getTotalMillis(), CENTRAL_DIRECTORY_PARSE.getTotalMillis(),
+            INSTALLS.get(), INSTALLS_FAILED.get(), INSTALL_VERIFY.getTotalMillis(), INSTALL_COPY.getTotalMillis(), INSTALL_EXTRACT.getTotalMillis(),
+            INSTALL_FSYNC.getTotalMillis(), INSTALL_FINALIZE.getTotalMillis(),
+            BYTES_READ.get() / (1024.0 * 1024.0), BYTES_WRITTEN.get() / (1024.0 * 1024.0), ENTRIES_WRITTEN.get(),
+            PEAK_BUFFER_BYTES.get() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * A named value in the registry.
+     */
+    public abstract static class Metric {
+        private final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        abstract void appendJson(StringBuilder json);
+
+        abstract void reset();
+    }
+
+    /**
+     * A running total.
+     */
+    public static final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name) {
+            super(name);
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        void appendJson(StringBuilder json) {
+            json.append(get());
+        }
+
+        @Override
+        void reset() {
+            value.reset();
+        }
+    }
+
+    /**
+     * The largest value recorded.
+     */
+    public static final class Maximum extends Metric {
+        private final LongAccumulator value = new LongAccumulator(Math::max, 0);
+
+        Maximum(String name) {
+            super(name);
+        }
+
+        public void record(long candidate) {
+            value.accumulate(candidate);
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        @Override
+        void appendJson(StringBuilder json) {
+            json.append(get());
+        }
+
+        @Override
+        void reset() {
+            value.reset();
+        }
+    }
+
+    /**
+     * Count, total and longest duration of an operation. Callers take {@link System#nanoTime()}
+     * before the operation and pass it to {@link #recordSince(long)} after.
+     */
+    public static final class Timer extends Metric {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Timer(String name) {
+            super(name);
+        }
+
+        /**
+         * Records the time since the given {@link System#nanoTime()} value and returns it.
+         */
+        public long recordSince(long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            record(nanos);
+            return nanos;
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1_000_000.0;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        @Override
+        void appendJson(StringBuilder json) {
+            json.append(String.format(Locale.ROOT, "{\"count\": %d, \"total_ms\": %.3f, \"max_ms\": %.3f}", getCount(), getTotalMillis(), getMaxMillis()));
+        }
+
+        @Override
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tar archives, plain or gzipped, read in a single streaming pass with only the JDK.
+ *
+ * <p>Understands ustar, GNU long names and pax path/size records. Only regular files and folders are
+ * extracted; links and device entries are skipped. Entry data that is not needed is skipped, which
+ * for plain tars is a seek and for gzipped ones still has to be inflated.</p>
+ */
+public class TarArchiveReader implements ArchiveReader {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_META_SIZE = 1024 * 1024;
+
+    private final boolean gzipped;
+    private final List<String> suffixes;
+
+    /**
+     * @param gzipped Whether this reads .tar.gz/.tgz instead of plain .tar files
+     */
+    public TarArchiveReader(boolean gzipped) {
+        this.gzipped = gzipped;
+        this.suffixes = gzipped ? List.of(".tar.gz", ".tgz") : List.of(".tar");
+    }
+
+    @Override
+    public List<String> suffixes() {
+        return suffixes;
+    }
+
+    @Override
+    public boolean isRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean forEachEntryName(File archive, Predicate<String> visitor) throws IOException {
+        try (TarStream tar = open(openFile(archive))) {
+            while (tar.next()) {
+                if (!visitor.test(tar.name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plain tars are totalled from their headers, skipping data by seeking; gzipped ones are only
+     * searched up to level.dat, since totalling them would mean inflating everything.
+     */
+    @Override
+    public WorldProbe probe(File archive) throws IOException {
+        if (gzipped) {
+            return ArchiveReader.super.probe(archive);
+        }
+        LevelDatLocation found = LevelDatLocation.NONE;
+        long entries = 0;
+        long size = 0;
+        try (TarStream tar = open(openFile(archive))) {
+            while (tar.next()) {
+                if (found == LevelDatLocation.NONE) {
+                    if (tar.name.equals("level.dat")) {
+                        found = LevelDatLocation.ROOT;
+                    } else if (tar.name.endsWith("/level.dat")) {
+                        found = LevelDatLocation.NESTED;
+                    }
+                }
+                entries++;
+                size += tar.size;
+            }
+        }
+        return new WorldProbe(found, entries, size);
+    }
+
+    @Override
+    public InputStream openWorldFile(File archive, String fileName) throws IOException {
+        String[] levelDat = {null};
+        forEachEntryName(archive, name -> {
+            if (name.equals("level.dat") || name.endsWith("/level.dat")) {
+                levelDat[0] = name;
+                return false;
+            }
+            return true;
+        });
+        if (levelDat[0] == null) {
+            return null;
+        }
+        String target = levelDat[0].substring(0, levelDat[0].length() - "level.dat".length()) + fileName;
+
+        // The file may come before level.dat, so it is looked for in a second pass
+        TarStream tar = open(openFile(archive));
+        try {
+            while (tar.next()) {
+                if (tar.isFile() && tar.name.equals(target)) {
+                    return new FilterInputStream(tar.entryStream()) {
+                        @Override
+                        public void close() throws IOException {
+                            tar.close();
+                        }
+                    };
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            tar.close();
+            throw e;
+        }
+        tar.close();
+        return null;
+    }
+
+    /**
+     * Extracts the archive in one pass. Progress is counted in archive bytes read, as the
+     * uncompressed total of a gzipped tar is not known up front.
+     */
+    @Override
+    public void extract(File archive, File destDir, int threads, InstallProgress progress, Predicate<String> include) throws IOException {
+        CountingInputStream counting = new CountingInputStream(openFile(archive));
+        progress.start(0, archive.length());
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long reported = 0;
+        // The copy buffer, the read-ahead buffer and the inflater's input buffer
+        Metrics.PEAK_BUFFER_BYTES.record((gzipped ? 3L : 2L) * BUFFER_SIZE);
+        try (TarStream tar = open(counting)) {
+            while (tar.next()) {
+                progress.checkCancelled();
+                if (!include.test(tar.name)) {
+                    // Skipped data still counts, progress is measured in archive bytes
+                    continue;
+                }
+                progress.entryStarted(tar.name);
+                File target = FileUtils.newFile(destDir, tar.name);
+                if (tar.isDirectory()) {
+                    if (!target.isDirectory() && !target.mkdirs()) {
+                        throw new IOException("Failed to create directory " + target);
+                    }
+                } else if (tar.isFile()) {
+                    File parent = target.getParentFile();
+                    if (!parent.isDirectory() && !parent.mkdirs()) {
+                        throw new IOException("Failed to create directory " + parent);
+                    }
+                    try (InputStream in = tar.entryStream(); OutputStream out = new FileOutputStream(target)) {
+                        int read;
+                        while ((read = in.read(buffer)) > 0) {
+                            out.write(buffer, 0, read);
+                            Metrics.BYTES_WRITTEN.add(read);
+                            progress.addBytes(counting.count - reported);
+                            reported = counting.count;
+                            progress.checkCancelled();
+                        }
+                    }
+                    Metrics.ENTRIES_WRITTEN.increment();
+                } else {
+                    EasyMapDownloadCore.LOGGER.debug("Skipping tar entry of type " + (char) tar.type + ": " + tar.name);
+                }
+                progress.entryDone();
+            }
+        }
+        progress.addBytes(counting.count - reported);
+        Metrics.BYTES_READ.add(counting.count);
+    }
+
+    private static InputStream openFile(File archive) throws IOException {
+        long start = System.nanoTime();
+        InputStream in = new FileInputStream(archive);
+        Metrics.ARCHIVE_OPEN.recordSince(start);
+        return in;
+    }
+
+    private TarStream open(InputStream file) throws IOException {
+        try {
+            InputStream in = new BufferedInputStream(file, BUFFER_SIZE);
+            return new TarStream(gzipped ? new GZIPInputStream(in, BUFFER_SIZE) : in);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Walks the headers of a tar stream. After {@link #next()} the current entry's data can be read
+     * through {@link #entryStream()}; whatever is left of it is skipped by the next call.
+     */
+    private static final class TarStream implements Closeable {
+
+        private final InputStream in;
+        private final byte[] header = new byte[BLOCK_SIZE];
+        private String name;
+        private long size;
+        private byte type;
+        /** Data bytes of the current entry not read yet, and the padding after them. */
+        private long dataLeft;
+        private long padding;
+
+        TarStream(InputStream in) {
+            this.in = in;
+        }
+
+        boolean next() throws IOException {
+            in.skipNBytes(dataLeft + padding);
+            dataLeft = 0;
+            padding = 0;
+
+            String longName = null;
+            long paxSize = -1;
+            while (true) {
+                if (!readHeader()) {
+                    return false;
+                }
+                long entrySize = parseNumber(124, 12);
+                byte entryType = header[156];
+
+                // GNU long link names ('K') and global pax records ('g') are read past and ignored
+                if (entryType == 'L' || entryType == 'K' || entryType == 'x' || entryType == 'g') {
+                    if (entrySize > MAX_META_SIZE) {
+                        throw new IOException("Tar metadata entry too large");
+                    }
+                    byte[] data = in.readNBytes((int) entrySize);
+                    if (data.length != entrySize) {
+                        throw new IOException("Truncated tar archive");
+                    }
+                    in.skipNBytes(paddingFor(entrySize));
+                    if (entryType == 'L') {
+                        longName = cString(data, 0, data.length);
+                    } else if (entryType == 'x') {
+                        String[] pax = parsePax(data);
+                        if (pax[0] != null) {
+                            longName = pax[0];
+                        }
+                        if (pax[1] != null) {
+                            try {
+                                paxSize = Long.parseLong(pax[1]);
+                            } catch (NumberFormatException e) {
+                                throw new IOException("Bad pax header");
+                            }
+                            if (paxSize < 0) {
+                                throw new IOException("Bad pax header");
+                            }
+                        }
+                    }
+                    continue;
+                }
+
+                String headerName = cString(header, 0, 100);
+                if (isUstar()) {
+                    String prefix = cString(header, 345, 155);
+                    if (!prefix.isEmpty()) {
+                        headerName = prefix + "/" + headerName;
+                    }
+                }
+                name = normalize(longName != null ? longName : headerName);
+                size = paxSize >= 0 ? paxSize : entrySize;
+                type = entryType;
+                // Links and devices never carry data; any other type, even an unknown one, has size bytes of it
+                dataLeft = type >= '1' && type <= '6' ? 0 : size;
+                padding = paddingFor(dataLeft);
+                if (name.isEmpty()) {
+                    // The archive's own root, as "tar -C world ." writes "./" first
+                    in.skipNBytes(dataLeft + padding);
+                    dataLeft = 0;
+                    padding = 0;
+                    longName = null;
+                    paxSize = -1;
+                    continue;
+                }
+                return true;
+            }
+        }
+
+        boolean isFile() {
+            return type == '0' || type == 0 || type == '7';
+        }
+
+        boolean isDirectory() {
+            return type == '5' || (type == 0 && name.endsWith("/"));
+        }
+
+        InputStream entryStream() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    if (dataLeft <= 0) {
+                        return -1;
+                    }
+                    int b = in.read();
+                    if (b < 0) {
+                        throw new IOException("Truncated tar archive");
+                    }
+                    dataLeft--;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    if (dataLeft <= 0) {
+                        return -1;
+                    }
+                    int read = in.read(buffer, offset, (int) Math.min(length, dataLeft));
+                    if (read < 0) {
+                        throw new IOException("Truncated tar archive");
+                    }
+                    dataLeft -= read;
+                    return read;
+                }
+            };
+        }
+
+        /**
+         * Reads the next header block, checking its checksum.
+         * @return false at the end-of-archive marker or the end of the stream
+         */
+        private boolean readHeader() throws IOException {
+            int read = in.readNBytes(header, 0, BLOCK_SIZE);
+            if (read == 0) {
+                return false;
+            }
+            if (read < BLOCK_SIZE) {
+                throw new IOException("Truncated tar archive");
+            }
+            boolean empty = true;
+            long unsignedSum = 0;
+            long signedSum = 0;
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                byte b = (i >= 148 && i < 156) ? (byte) ' ' : header[i];
+                unsignedSum += b & 0xFF;
+                signedSum += b;
+                empty &= header[i] == 0;
+            }
+            if (empty) {
+                return false;
+            }
+            long checksum = parseNumber(148, 8);
+            if (checksum != unsignedSum && checksum != signedSum) {
+                throw new IOException("Not a tar archive (bad header checksum)");
+            }
+            return true;
+        }
+
+        private boolean isUstar() {
+            return header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r';
+        }
+
+        /**
+         * Parses an octal header field, or a base-256 one as GNU tar writes for large values.
+         */
+        private long parseNumber(int offset, int length) throws IOException {
+            if ((header[offset] & 0x80) != 0) {
+                long value = header[offset] & 0x7F;
+                for (int i = 1; i < length; i++) {
+                    value = (value << 8) | (header[offset + i] & 0xFF);
+                }
+                return value;
+            }
+            long value = 0;
+            int end = offset + length;
+            int i = offset;
+            while (i < end && (header[i] == ' ' || header[i] == 0)) {
+                i++;
+            }
+            for (; i < end && header[i] >= '0' && header[i] <= '7'; i++) {
+                value = (value << 3) + (header[i] - '0');
+            }
+            if (i < end && header[i] != ' ' && header[i] != 0) {
+                throw new IOException("Not a tar archive (bad number field)");
+            }
+            return value;
+        }
+
+        /**
+         * Returns the pax path and size records, either of which may be null.
+         */
+        private static String[] parsePax(byte[] data) throws IOException {
+            String[] result = new String[2];
+            int position = 0;
+            while (position < data.length) {
+                int space = position;
+                while (space < data.length && data[space] != ' ') {
+                    space++;
+                }
+                int length;
+                try {
+                    length = Integer.parseInt(new String(data, position, space - position, StandardCharsets.US_ASCII));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Bad pax header");
+                }
+                // A record is "<length> <key>=<value>\n", its length counting itself
+                if (length <= 0 || position + length > data.length || space >= position + length - 1) {
+                    throw new IOException("Bad pax header");
+                }
+                String record = new String(data, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+                int equals = record.indexOf('=');
+                if (equals > 0) {
+                    String key = record.substring(0, equals);
+                    if (key.equals("path")) {
+                        result[0] = record.substring(equals + 1);
+                    } else if (key.equals("size")) {
+                        result[1] = record.substring(equals + 1);
+                    }
+                }
+                position += length;
+            }
+            return result;
+        }
+
+        private static String cString(byte[] bytes, int offset, int length) {
+            int end = offset;
+            while (end < offset + length && bytes[end] != 0) {
+                end++;
+            }
+            return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Strips leading "./" and "/" so names are relative to the archive root, which itself becomes "".
+         */
+        private static String normalize(String name) {
+            while (true) {
+                if (name.startsWith("./")) {
+                    name = name.substring(2);
+                } else if (name.startsWith("/")) {
+                    name = name.substring(1);
+                } else if (name.equals(".")) {
+                    return "";
+                } else {
+                    return name;
+                }
+            }
+        }
+
+        private static long paddingFor(long size) {
+            return (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
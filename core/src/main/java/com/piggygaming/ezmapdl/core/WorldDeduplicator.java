@@ -0,0 +1,211 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds archives that are byte-for-byte copies of each other, like {@code map.zip} and {@code map (1).zip}.
+ *
+ * <p>Archives are first grouped by a cheap fingerprint: their size and the content digest from the
+ * probe, which the scan has already read from the central directory. Only archives whose
+ * fingerprints collide are hashed, one at a time on a background thread, and the hash is kept in
+ * the {@link WorldIndex} so an unchanged archive is never hashed twice.</p>
+ */
+public class WorldDeduplicator {
+
+    private static final int HASH_BUFFER_SIZE = 1024 * 1024;
+
+    private final Path indexFile;
+    /** Archives by fingerprint. Guarded by this. */
+    private final Map<Fingerprint, Set<File>> groups = new HashMap<>();
+    private final Map<File, Fingerprint> fingerprints = new HashMap<>();
+    /** Confirmed content ids, the hex hash of each archive's bytes. */
+    private final Map<File, String> contentIds = new ConcurrentHashMap<>();
+    private final Set<File> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger version = new AtomicInteger();
+    private final ExecutorService hasher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EasyMapDownload-Dedup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private volatile boolean stopped;
+
+    /**
+     * @param indexFile The {@link WorldIndex} file hashes are cached in
+     */
+    public WorldDeduplicator(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    private record Fingerprint(long size, long contentDigest) {
+    }
+
+    /**
+     * Adds a validated archive. If another archive has the same fingerprint, both are queued for hashing.
+     * Safe to call from any thread.
+     */
+    public void add(File archive, WorldProbe probe) {
+        Fingerprint fingerprint = new Fingerprint(archive.length(), probe.getContentDigest());
+        List<File> collisions;
+        synchronized (this) {
+            Fingerprint previous = fingerprints.put(archive, fingerprint);
+            if (previous != null && !previous.equals(fingerprint)) {
+                removeFromGroup(archive, previous);
+                contentIds.remove(archive);
+                queued.remove(archive);
+            }
+            Set<File> group = groups.computeIfAbsent(fingerprint, ignored -> new LinkedHashSet<>());
+            group.add(archive);
+            if (group.size() < 2) {
+                return;
+            }
+            collisions = new ArrayList<>(group);
+        }
+        for (File file : collisions) {
+            if (queued.add(file)) {
+                submit(() -> hash(file));
+            }
+        }
+    }
+
+    /**
+     * Probes an archive through the index on the background thread, then adds it.
+     * For archives found outside a scan, e.g. by a directory watcher.
+     */
+    public void add(File archive) {
+        submit(() -> {
+            WorldProbe probe = WorldIndex.get(indexFile).probe(archive);
+            if (probe.isWorld()) {
+                add(archive, probe);
+            }
+        });
+    }
+
+    /**
+     * Forgets an archive that was deleted or is no longer a world.
+     */
+    public void remove(File archive) {
+        synchronized (this) {
+            Fingerprint fingerprint = fingerprints.remove(archive);
+            if (fingerprint != null) {
+                removeFromGroup(archive, fingerprint);
+            }
+        }
+        queued.remove(archive);
+        if (contentIds.remove(archive) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            hasher.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Stopped, nothing more gets hashed
+        }
+    }
+
+    private void removeFromGroup(File archive, Fingerprint fingerprint) {
+        Set<File> group = groups.get(fingerprint);
+        if (group != null) {
+            group.remove(archive);
+            if (group.isEmpty()) {
+                groups.remove(fingerprint);
+            }
+        }
+    }
+
+    /**
+     * Returns the hex hash of an archive's bytes, or null if it has not been hashed (yet). Archives
+     * are only hashed once another archive shares their fingerprint.
+     */
+    public String getContentId(File archive) {
+        return contentIds.get(archive);
+    }
+
+    /**
+     * Returns a number that changes whenever a content id was added or removed.
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    private void hash(File archive) {
+        if (stopped || !queued.contains(archive)) {
+            return;
+        }
+        long size = archive.length();
+        long lastModified = archive.lastModified();
+        WorldIndex index = WorldIndex.get(indexFile);
+        try {
+            byte[] hash = index.getContentHash(archive);
+            if (hash == null) {
+                hash = hashFile(archive);
+                if (hash == null) {
+                    return;
+                }
+                if (index.putContentHash(archive, size, lastModified, hash)) {
+                    index.flush();
+                }
+            }
+            if (queued.contains(archive)) {
+                contentIds.put(archive, HexFormat.of().formatHex(hash));
+                version.incrementAndGet();
+            }
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.debug("Could not hash " + archive.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams an archive through SHA-256.
+     * @return The hash, or null if hashing was stopped
+     */
+    private byte[] hashFile(File archive) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                if (stopped) {
+                    return null;
+                }
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Stops hashing. A hash in progress ends at its next buffer.
+     */
+    public void stop() {
+        stopped = true;
+        hasher.shutdown();
+    }
+}
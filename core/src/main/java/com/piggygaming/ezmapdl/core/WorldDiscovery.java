@@ -0,0 +1,204 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Finds world archive candidates and unpacked world folders in nested folders below several roots.
+ *
+ * <p>Each root is walked on its own thread up to a maximum depth. Heavy tool folders are skipped by
+ * name wherever they are, system folders only right below a filesystem root, and the game's own folder
+ * by path, since its saves are installed worlds. Folders reached twice (through links or overlapping roots) are only walked once, and the
+ * whole search stops after a fixed number of files, so time and memory stay bounded on large drives.
+ * Candidates are only filtered by extension; validating them is left to the caller.</p>
+ */
+public class WorldDiscovery {
+
+    /** Folder names skipped by default at any depth, compared case-insensitively. */
+    public static final Set<String> DEFAULT_SKIPPED_FOLDERS = Set.of(
+        "node_modules", ".git", ".svn", ".hg", ".gradle", ".m2", ".cache", "__pycache__", ".trash");
+
+    /**
+     * Operating system folders, skipped only right below a filesystem root so that a "dev" or "windows"
+     * folder of the user's own is still searched. Compared case-insensitively.
+     */
+    private static final Set<String> SYSTEM_FOLDERS = Set.of(
+        "$recycle.bin", "system volume information", "windows", "program files", "program files (x86)",
+        "programdata", "proc", "sys", "dev");
+
+    private final List<Path> extraRoots;
+    private final Set<Path> skippedPaths;
+    private final int maxDepth;
+    private final int maxFiles;
+    private final Set<String> skippedFolders;
+    private final int parallelism;
+    private final AtomicInteger filesVisited = new AtomicInteger();
+    /** Identities of the folders walked so far, so no folder is walked twice. */
+    private final Set<Object> visitedFolders = ConcurrentHashMap.newKeySet();
+    private volatile boolean capped;
+    private volatile boolean shouldStop;
+
+    /**
+     * @param extraRoots Roots searched in addition to the one passed to {@link #findArchives(Path)}
+     * @param skippedPaths Folders that are never entered wherever they are reached from, e.g. the game folder
+     * @param maxDepth How many folder levels below a root are searched
+     * @param maxFiles How many files are looked at in total before the search stops
+     * @param skippedFolders Folder names that are never entered, compared case-insensitively
+     * @param parallelism The maximum number of roots walked at the same time
+     */
+    public WorldDiscovery(List<Path> extraRoots, List<Path> skippedPaths, int maxDepth, int maxFiles, Set<String> skippedFolders, int parallelism) {
+        this.extraRoots = List.copyOf(extraRoots);
+        this.skippedPaths = skippedPaths.stream()
+            .map(path -> path.toAbsolutePath().normalize())
+            .collect(Collectors.toUnmodifiableSet());
+        this.maxDepth = Math.max(0, maxDepth);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.skippedFolders = skippedFolders.stream()
+            .map(name -> name.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Walks the given root and the extra roots in parallel and returns every archive and world folder found.
+     * Can only be called once per instance.
+     */
+    public List<File> findArchives(Path primaryRoot) throws InterruptedException {
+        Set<Path> roots = new LinkedHashSet<>();
+        roots.add(primaryRoot.toAbsolutePath().normalize());
+        for (Path root : extraRoots) {
+            roots.add(root.toAbsolutePath().normalize());
+        }
+
+        List<File> archives = Collections.synchronizedList(new ArrayList<>());
+        List<Callable<Void>> walkers = new ArrayList<>(roots.size());
+        for (Path root : roots) {
+            walkers.add(() -> {
+                walk(root, archives);
+                return null;
+            });
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, roots.size()), runnable -> {
+            Thread thread = new Thread(runnable, "WorldDiscovery-Walker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            pool.invokeAll(walkers);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (capped) {
+            EasyMapDownloadCore.LOGGER.info("World discovery stopped after " + maxFiles + " files, some folders were not searched");
+        }
+        synchronized (archives) {
+            return new ArrayList<>(archives);
+        }
+    }
+
+    private void walk(Path root, List<File> archives) {
+        try {
+            Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth + 1, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (shouldStop || capped) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    if (!dir.equals(root) && isSkipped(dir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    // fileKey() is null on Windows, where the normalized path has to do
+                    Object identity = attrs.fileKey() != null ? attrs.fileKey() : dir.toAbsolutePath().normalize();
+                    if (!visitedFolders.add(identity)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    // An unpacked world is a candidate itself, nothing inside it needs searching
+                    if (!dir.equals(root) && FileUtils.isWorldFolder(dir.toFile())) {
+                        archives.add(dir.toFile());
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (filesVisited.incrementAndGet() > maxFiles) {
+                        capped = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    if (attrs.isRegularFile() && ArchiveReaders.isArchive(file)) {
+                        archives.add(file.toFile());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    // Link loops (FileSystemLoopException), broken links and folders we may not read
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.debug("Could not search " + root + ": " + e.getMessage());
+        }
+    }
+
+    private boolean isSkipped(Path dir) {
+        Path name = dir.getFileName();
+        if (name == null) {
+            return false;
+        }
+        String lowerName = name.toString().toLowerCase(Locale.ROOT);
+        if (skippedFolders.contains(lowerName)) {
+            return true;
+        }
+        // Walked paths are absolute, so a single name means the folder sits right below a root
+        if (dir.getNameCount() == 1 && SYSTEM_FOLDERS.contains(lowerName)) {
+            return true;
+        }
+        return skippedPaths.contains(dir);
+    }
+
+    /**
+     * Stops all walks at the next folder.
+     */
+    public void stop() {
+        shouldStop = true;
+    }
+
+    /**
+     * Returns the number of files looked at so far.
+     */
+    public int getFilesVisited() {
+        return Math.min(filesVisited.get(), maxFiles);
+    }
+
+    /**
+     * Returns true if the search stopped early because it reached the file limit.
+     */
+    public boolean isCapped() {
+        return capped;
+    }
+}
@@ -0,0 +1,183 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies an unpacked world folder, with several files in flight at once.
+ *
+ * <p>Files are copied largest first so one huge region file does not end up last on a single thread.
+ * Small files go through {@link Files#copy}, which uses the platform's native copy; large ones are
+ * transferred in chunks so progress and cancellation keep working. When hard links are allowed and
+ * source and target share a filesystem, files are linked instead of copied.</p>
+ */
+public class WorldFolderCopier {
+
+    private static final long CHUNKED_THRESHOLD = 64L * 1024 * 1024;
+    private static final long CHUNK_SIZE = 16L * 1024 * 1024;
+
+    private final int threads;
+    /** Whether files may be hard-linked; cleared on the first failure so the rest is copied. */
+    private volatile boolean hardLinks;
+
+    /**
+     * @param threads The maximum number of files copied at the same time
+     * @param hardLinks Whether to hard-link files instead of copying them where the filesystem allows it
+     */
+    public WorldFolderCopier(int threads, boolean hardLinks) {
+        this.threads = Math.max(1, threads);
+        this.hardLinks = hardLinks;
+    }
+
+    /**
+     * Copies the folder {@code source} to {@code target}, which must not exist yet.
+     */
+    public void copy(Path source, Path target, InstallProgress progress) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                directories.add(source.relativize(dir));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.add(source.relativize(file));
+                    sizes.add(attrs.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        long totalBytes = 0;
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            totalBytes += sizes.get(i);
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sizes.get(b), sizes.get(a)));
+        progress.start(files.size(), totalBytes);
+
+        for (Path directory : directories) {
+            Files.createDirectories(target.resolve(directory.toString()));
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        int workerCount = Math.max(1, Math.min(threads, order.length));
+        List<Callable<Void>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(() -> {
+                int position;
+                while ((position = next.getAndIncrement()) < order.length) {
+                    int file = order[position];
+                    Path relative = files.get(file);
+                    progress.checkCancelled();
+                    progress.entryStarted(relative.toString());
+                    copyFile(source.resolve(relative), target.resolve(relative.toString()), sizes.get(file), progress);
+                    progress.entryDone();
+                }
+                return null;
+            });
+        }
+        runWorkers(workers, next, order.length);
+    }
+
+    private void copyFile(Path from, Path to, long size, InstallProgress progress) throws IOException {
+        if (hardLinks) {
+            try {
+                Files.createLink(to, from);
+                progress.addBytes(size);
+                Metrics.ENTRIES_WRITTEN.increment();
+                return;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                // Different filesystem or no link support, copy this and every following file
+                hardLinks = false;
+                EasyMapDownloadCore.LOGGER.info("Cannot hard-link world files (" + e.getMessage() + "), copying instead");
+            }
+        }
+
+        if (size < CHUNKED_THRESHOLD) {
+            Files.copy(from, to, StandardCopyOption.COPY_ATTRIBUTES);
+            progress.addBytes(size);
+            recordCopied(size);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(to, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            long position = 0;
+            while (position < size) {
+                progress.checkCancelled();
+                long transferred = in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+                if (transferred <= 0) {
+                    throw new IOException("Could not copy " + from.getFileName() + ", it shrank while copying");
+                }
+                position += transferred;
+                progress.addBytes(transferred);
+            }
+        }
+        Files.setLastModifiedTime(to, Files.getLastModifiedTime(from));
+        recordCopied(size);
+    }
+
+    private static void recordCopied(long size) {
+        Metrics.BYTES_READ.add(size);
+        Metrics.BYTES_WRITTEN.add(size);
+        Metrics.ENTRIES_WRITTEN.increment();
+    }
+
+    private void runWorkers(List<Callable<Void>> workers, AtomicInteger next, int total) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers.size(), runnable -> {
+            Thread thread = new Thread(runnable, "WorldFolderCopier-Worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>(workers.size());
+            for (Callable<Void> worker : workers) {
+                futures.add(pool.submit(worker));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Stop the other workers from picking up more files
+                    next.set(total);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new IOException("Copy failed", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            next.set(total);
+            Thread.currentThread().interrupt();
+            throw new IOException("Copy interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of archive validation results, keyed by path and fingerprinted by size and modification time.
+ * Archives whose fingerprint is unchanged are not opened again on later scans.
+ *
+ * <p>The file is a header followed by framed records ({@code length, payload, crc32}). New results are
+ * appended, the last record for a path wins, and reading stops at the first damaged frame, so a
+ * crash mid-write only loses the results that were being written. The file is rewritten once
+ * stale records outnumber live ones.</p>
+ *
+ * <p>Besides the probe result, a record holds the archive's content digest and, once duplicate
+ * detection hashed it, the hash of its bytes, so neither is computed again for an unchanged archive.</p>
+ */
+public class WorldIndex {
+
+    private static final int MAGIC = 0x455A4D49; // "EZMI"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    /** Probe result only, written before content digests existed. */
+    private static final byte RECORD_ARCHIVE = 1;
+    /** Probe result with content digest and an optional hash of the archive's bytes. */
+    private static final byte RECORD_ARCHIVE_CONTENT = 2;
+    private static final int MAX_HASH_LENGTH = 64;
+
+    private static final byte FLAG_WORLD = 1;
+    private static final byte FLAG_ROOT = 2;
+
+    private static final Map<Path, WorldIndex> LOADED = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Entry> pending = new ArrayList<>();
+    private int recordsOnDisk;
+
+    private WorldIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the shared index stored in the given file, loading it on first use.
+     * This does disk I/O, so call it from a background thread.
+     */
+    public static WorldIndex get(Path file) {
+        return LOADED.computeIfAbsent(file.toAbsolutePath(), WorldIndex::load);
+    }
+
+    /**
+     * Loads the index from disk. A missing or unreadable file gives an empty index.
+     */
+    public static WorldIndex load(Path file) {
+        WorldIndex index = new WorldIndex(file);
+        try {
+            index.read();
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.warn("Could not read world index " + file + ", starting a new one", e);
+            index.entries.clear();
+            index.recordsOnDisk = 0;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Appending will fail later and be logged there
+            }
+        }
+        return index;
+    }
+
+    private void read() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        long validLength = HEADER_LENGTH;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                EasyMapDownloadCore.LOGGER.info("Discarding world index with unknown format: " + file);
+                Files.delete(file);
+                return;
+            }
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                if (in.readNBytes(payload, 0, length) < length) {
+                    break;
+                }
+                int storedCrc;
+                try {
+                    storedCrc = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != storedCrc) {
+                    break;
+                }
+                readRecord(new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+                recordsOnDisk++;
+                validLength += 8 + length;
+            }
+        } catch (EOFException e) {
+            // Header cut short, nothing usable
+            Files.delete(file);
+            return;
+        }
+
+        // Drop a damaged tail so new records are appended after the last good one
+        if (Files.size(file) > validLength) {
+            EasyMapDownloadCore.LOGGER.info("Truncating damaged world index at byte " + validLength);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    private void readRecord(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == RECORD_ARCHIVE_CONTENT) {
+            String path = in.readUTF();
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            byte flags = in.readByte();
+            long entryCount = in.readLong();
+            long uncompressedSize = in.readLong();
+            long contentDigest = in.readLong();
+            int hashLength = in.readUnsignedByte();
+            if (hashLength > MAX_HASH_LENGTH) {
+                throw new IOException("Invalid content hash length " + hashLength);
+            }
+            byte[] contentHash = hashLength > 0 ? in.readNBytes(hashLength) : null;
+            LevelDatLocation location = (flags & FLAG_WORLD) == 0 ? LevelDatLocation.NONE
+                : (flags & FLAG_ROOT) != 0 ? LevelDatLocation.ROOT : LevelDatLocation.NESTED;
+            WorldProbe probe = new WorldProbe(location, entryCount, uncompressedSize, contentDigest);
+            entries.put(path, new Entry(path, size, lastModified, probe, contentHash));
+        }
+        // Old RECORD_ARCHIVE records lack the digest, so those archives are probed once more.
+        // Unknown record types are skipped so newer index files stay readable.
+    }
+
+    private static void writeRecord(DataOutputStream out, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.path.length() + 96);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        WorldProbe probe = entry.probe;
+        byte flags = 0;
+        if (probe.isWorld()) flags |= FLAG_WORLD;
+        if (probe.isLevelDatAtRoot()) flags |= FLAG_ROOT;
+        payload.writeByte(RECORD_ARCHIVE_CONTENT);
+        payload.writeUTF(entry.path);
+        payload.writeLong(entry.size);
+        payload.writeLong(entry.lastModified);
+        payload.writeByte(flags);
+        payload.writeLong(probe.getEntryCount());
+        payload.writeLong(probe.getUncompressedSize());
+        payload.writeLong(probe.getContentDigest());
+        if (entry.contentHash != null) {
+            payload.writeByte(entry.contentHash.length);
+            payload.write(entry.contentHash);
+        } else {
+            payload.writeByte(0);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Returns the cached result for an archive, or validates it and records the result
+     * if the archive is new or its size or modification time changed. Archives that could not be
+     * read give {@link WorldProbe#INVALID} and are not recorded, so they are tried again next time.
+     */
+    public WorldProbe probe(File archive) {
+        String path = archive.getAbsolutePath();
+        long size = archive.length();
+        long lastModified = archive.lastModified();
+        Entry entry = entries.get(path);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            Metrics.SCAN_INDEX_HITS.increment();
+            return entry.probe;
+        }
+
+        WorldProbe probe;
+        try {
+            probe = ArchiveReaders.forFileOrZip(archive).probe(archive);
+        } catch (IOException e) {
+            // Possibly a download still being written or a file another program has locked, which
+            // would otherwise stay invalid until its size or modification time changed
+            return WorldProbe.INVALID;
+        }
+        Entry updated = new Entry(path, size, lastModified, probe, null);
+        entries.put(path, updated);
+        synchronized (pending) {
+            pending.add(updated);
+        }
+        return probe;
+    }
+
+    /**
+     * Returns the recorded hash of an archive's bytes, or null if it was not hashed at its current
+     * size and modification time.
+     */
+    public byte[] getContentHash(File archive) {
+        Entry entry = entries.get(archive.getAbsolutePath());
+        if (entry == null || entry.contentHash == null || entry.size != archive.length() || entry.lastModified != archive.lastModified()) {
+            return null;
+        }
+        return entry.contentHash.clone();
+    }
+
+    /**
+     * Records the hash of an archive's bytes next to its probe result.
+     * @param size The archive's size when hashing started
+     * @param lastModified The archive's modification time when hashing started
+     * @return false if the archive was not probed at that size and time, so the hash was not kept
+     */
+    public boolean putContentHash(File archive, long size, long lastModified, byte[] hash) {
+        if (hash.length > MAX_HASH_LENGTH) {
+            throw new IllegalArgumentException("Hash too long: " + hash.length);
+        }
+        String path = archive.getAbsolutePath();
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+            return false;
+        }
+        Entry updated = new Entry(path, size, lastModified, entry.probe, hash.clone());
+        if (!entries.replace(path, entry, updated)) {
+            return false;
+        }
+        synchronized (pending) {
+            pending.add(updated);
+        }
+        return true;
+    }
+
+    /**
+     * Writes results recorded since the last flush, compacting the file if it has grown mostly stale.
+     */
+    public synchronized void flush() {
+        List<Entry> toWrite;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            toWrite = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            if (recordsOnDisk + toWrite.size() > 2 * entries.size() + 64) {
+                compact();
+            } else {
+                append(toWrite);
+            }
+        } catch (IOException e) {
+            EasyMapDownloadCore.LOGGER.warn("Could not write world index " + file, e);
+        }
+    }
+
+    private void append(List<Entry> toWrite) throws IOException {
+        boolean isNew = !Files.exists(file);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            if (isNew) {
+                writeHeader(out);
+                recordsOnDisk = 0;
+            }
+            for (Entry entry : toWrite) {
+                writeRecord(out, entry);
+            }
+        }
+        recordsOnDisk += toWrite.size();
+    }
+
+    /**
+     * Rewrites the index with one record per archive that still exists.
+     */
+    private void compact() throws IOException {
+        entries.values().removeIf(entry -> !new File(entry.path).isFile());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            writeHeader(out);
+            for (Entry entry : entries.values()) {
+                writeRecord(out, entry);
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        recordsOnDisk = entries.size();
+    }
+
+    private static void writeHeader(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+    }
+
+    /**
+     * Returns the number of archives currently known to the index.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final String path;
+        final long size;
+        final long lastModified;
+        final WorldProbe probe;
+        /** Hash of the archive's bytes, or null if it was never hashed. */
+        final byte[] contentHash;
+
+        Entry(String path, long size, long lastModified, WorldProbe probe, byte[] contentHash) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.probe = probe;
+            this.contentHash = contentHash;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The files an install put into a world, kept in the world folder itself so the list moves and gets
+ * backed up with it.
+ *
+ * <p>An update compares it with the new version of the map to delete the files the map dropped, and
+ * leaves everything the game or the player added alone, since those were never on the list.</p>
+ */
+final class WorldManifest {
+
+    /** Name of the list inside the world folder. The game ignores files it does not know. */
+    static final String FILE_NAME = "ezmapdl-files.txt";
+
+    private WorldManifest() {
+    }
+
+    /**
+     * Returns the files an earlier install recorded, relative to the world and separated by '/',
+     * or null if the world has no list, e.g. because it was installed before lists were kept.
+     */
+    static Set<String> read(Path world) throws IOException {
+        Path file = world.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        return new LinkedHashSet<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records the files of a world, replacing any earlier list.
+     */
+    static void write(Path world, Collection<String> files) throws IOException {
+        List<String> lines = new ArrayList<>(files.size());
+        for (String name : files) {
+            // A name that cannot be one line is left off, so it is never deleted
+            if (!name.equals(FILE_NAME) && name.indexOf('\n') < 0 && name.indexOf('\r') < 0) {
+                lines.add(name);
+            }
+        }
+        Path file = world.resolve(FILE_NAME);
+        Path temp = world.resolve(FILE_NAME + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lists the files in a freshly extracted world, relative to it and separated by '/'.
+     */
+    static List<String> list(Path world) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(world)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path)) {
+                    files.add(world.relativize(path).toString().replace(world.getFileSystem().getSeparator(), "/"));
+                }
+            }
+        }
+        return files;
+    }
+}
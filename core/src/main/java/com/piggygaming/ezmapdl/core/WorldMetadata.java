@@ -0,0 +1,78 @@
+package com.piggygaming.ezmapdl.core;
+
+/**
+ * The details shown for a world, read from its level.dat.
+ */
+public final class WorldMetadata {
+
+    private final String levelName;
+    private final String versionName;
+    private final int gameType;
+    private final boolean hardcore;
+    private final boolean allowCommands;
+    private final long lastPlayed;
+    private final int dataVersion;
+
+    public WorldMetadata(String levelName, String versionName, int gameType, boolean hardcore, boolean allowCommands, long lastPlayed, int dataVersion) {
+        this.levelName = levelName;
+        this.versionName = versionName;
+        this.gameType = gameType;
+        this.hardcore = hardcore;
+        this.allowCommands = allowCommands;
+        this.lastPlayed = lastPlayed;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * Returns the world's display name, or null if level.dat has none.
+     */
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * Returns the game version the world was last saved in, e.g. "1.21", or null for very old worlds.
+     */
+    public String getVersionName() {
+        return versionName;
+    }
+
+    public int getGameType() {
+        return gameType;
+    }
+
+    public String getGameModeName() {
+        if (hardcore) {
+            return "Hardcore";
+        }
+        return switch (gameType) {
+            case 0 -> "Survival";
+            case 1 -> "Creative";
+            case 2 -> "Adventure";
+            case 3 -> "Spectator";
+            default -> "Unknown";
+        };
+    }
+
+    public boolean isHardcore() {
+        return hardcore;
+    }
+
+    public boolean isAllowCommands() {
+        return allowCommands;
+    }
+
+    /**
+     * Returns when the world was last played, in milliseconds since the epoch, or 0 if unknown.
+     */
+    public long getLastPlayed() {
+        return lastPlayed;
+    }
+
+    /**
+     * Returns the world's data version, or 0 for worlds older than 1.9.
+     */
+    public int getDataVersion() {
+        return dataVersion;
+    }
+}
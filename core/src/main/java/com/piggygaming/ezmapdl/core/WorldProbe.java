@@ -0,0 +1,64 @@
+package com.piggygaming.ezmapdl.core;
+
+/**
+ * The result of validating an archive: where its level.dat is, how big it unpacks to, and a digest
+ * of its entries' CRCs that archives with the same content share.
+ */
+public final class WorldProbe {
+
+    /** Result for archives that could not be read. */
+    public static final WorldProbe INVALID = new WorldProbe(LevelDatLocation.NONE, 0, 0);
+
+    private final LevelDatLocation levelDatLocation;
+    private final long entryCount;
+    private final long uncompressedSize;
+    private final long contentDigest;
+
+    public WorldProbe(LevelDatLocation levelDatLocation, long entryCount, long uncompressedSize) {
+        this(levelDatLocation, entryCount, uncompressedSize, 0);
+    }
+
+    /**
+     * @param contentDigest Order-independent digest of the entries' CRCs and sizes, or 0 if unknown
+     */
+    public WorldProbe(LevelDatLocation levelDatLocation, long entryCount, long uncompressedSize, long contentDigest) {
+        this.levelDatLocation = levelDatLocation;
+        this.entryCount = entryCount;
+        this.uncompressedSize = uncompressedSize;
+        this.contentDigest = contentDigest;
+    }
+
+    public LevelDatLocation getLevelDatLocation() {
+        return levelDatLocation;
+    }
+
+    public boolean isWorld() {
+        return levelDatLocation.isWorld();
+    }
+
+    /**
+     * Returns true if level.dat is at the archive root rather than inside a world folder.
+     */
+    public boolean isLevelDatAtRoot() {
+        return levelDatLocation == LevelDatLocation.ROOT;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the total size of all entries once extracted, in bytes.
+     */
+    public long getUncompressedSize() {
+        return uncompressedSize;
+    }
+
+    /**
+     * Returns a digest of the entries' CRCs and sizes that does not depend on entry order, or 0 if
+     * the format has no CRCs to build it from. Equal digests only suggest equal content.
+     */
+    public long getContentDigest() {
+        return contentDigest;
+    }
+}
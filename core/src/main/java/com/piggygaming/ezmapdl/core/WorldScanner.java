@@ -0,0 +1,365 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous world file scanner that progressively scans a directory
+ * for valid Minecraft world zip files without blocking the main thread.
+ * Archives are validated in parallel on a bounded pool of worker threads.
+ */
+public final class WorldScanner extends Thread {
+    
+    private final String directoryPath;
+    private final int parallelism;
+    /** Where cached validation results are kept, or null to always open every archive. */
+    private final Path indexFile;
+    /** Searches nested folders and extra roots, or null to only look at the top level of the directory. */
+    private final WorldDiscovery discovery;
+    /** Collapses copies of the same archive into one entry, or null to list every copy. */
+    private final WorldDeduplicator deduplicator;
+    /** Found worlds keyed by their position in the newest-first ordering. */
+    private final TreeMap<Integer, File> foundWorldFiles;
+    /** Position for the next world added after the scan, counting down so it sorts before everything else. */
+    private int nextAddedPosition = -1;
+    /** Counts changes to {@link #foundWorldFiles}. Written while holding it. */
+    private volatile int modifications;
+    /**
+     * The found worlds without confirmed copies, and the copy counts, as of {@link #getVersion() version}
+     * {@code viewVersion}. Guarded by {@link #foundWorldFiles}.
+     */
+    private int viewVersion = -1;
+    private List<File> viewWorlds = List.of();
+    private Map<File, Integer> viewDuplicateCounts = Map.of();
+    private volatile boolean isScanning;
+    private volatile boolean shouldStop;
+    private final AtomicInteger filesScanned;
+    private final AtomicInteger totalFiles;
+    
+    public WorldScanner(String directoryPath) {
+        this(directoryPath, defaultParallelism(), null, null);
+    }
+    
+    /**
+     * @param directoryPath The directory to scan
+     * @param parallelism The maximum number of archives validated at the same time
+     * @param indexFile The {@link WorldIndex} file to reuse results from, or null to disable caching
+     * @param discovery Finds archives in nested folders and other roots, or null for the top level only
+     */
+    public WorldScanner(String directoryPath, int parallelism, Path indexFile, WorldDiscovery discovery) {
+        this(directoryPath, parallelism, indexFile, discovery, false);
+    }
+    
+    /**
+     * @param deduplicate Whether copies of the same archive are listed once; needs an index file
+     */
+    public WorldScanner(String directoryPath, int parallelism, Path indexFile, WorldDiscovery discovery, boolean deduplicate) {
+        this.directoryPath = directoryPath;
+        this.parallelism = Math.max(1, parallelism);
+        this.indexFile = indexFile;
+        this.discovery = discovery;
+        this.deduplicator = deduplicate && indexFile != null ? new WorldDeduplicator(indexFile) : null;
+        this.foundWorldFiles = new TreeMap<>();
+        this.isScanning = false;
+        this.shouldStop = false;
+        this.filesScanned = new AtomicInteger();
+        this.totalFiles = new AtomicInteger();
+        this.setDaemon(true);
+        this.setName("WorldScanner-Thread");
+    }
+    
+    /**
+     * Default concurrency cap: one worker per core, capped so spinning disks are not thrashed.
+     */
+    public static int defaultParallelism() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), 4);
+    }
+    
+    @Override
+    public synchronized void start() {
+        // Mark as scanning before the thread runs so callers never see a finished, empty scan
+        isScanning = true;
+        super.start();
+    }
+    
+    @Override
+    public void run() {
+        isScanning = true;
+        long start = System.nanoTime();
+        
+        try {
+            File[] zipFiles = discovery != null ? discovery.findArchives(Path.of(directoryPath)).toArray(File[]::new) : listCandidates();
+            if (zipFiles == null || shouldStop) {
+                return;
+            }
+            
+            totalFiles.set(zipFiles.length);
+            Metrics.SCAN_CANDIDATES.add(zipFiles.length);
+            
+            if (zipFiles.length == 0) {
+                return;
+            }
+            
+            // Sort by modification date (newest first)
+            Arrays.sort(zipFiles, Comparator.comparingLong(File::lastModified).reversed());
+            
+            WorldIndex index = indexFile != null ? WorldIndex.get(indexFile) : null;
+            try {
+                scanInParallel(zipFiles, index);
+            } finally {
+                if (index != null) {
+                    index.flush();
+                }
+            }
+        } catch (Exception e) {
+            EasyMapDownloadCore.LOGGER.error("Error during world scanning", e);
+        } finally {
+            long nanos = Metrics.SCAN.recordSince(start);
+            EasyMapDownloadCore.LOGGER.info("Scanned " + filesScanned.get() + "/" + totalFiles.get() + " candidates in "
+                + nanos / 1_000_000 + " ms, " + getFoundWorldFiles().size() + " worlds");
+            isScanning = false;
+        }
+    }
+    
+    /**
+     * Returns the archives and folders at the top level of the directory, or null if it cannot be listed.
+     */
+    private File[] listCandidates() {
+        File[] files = new File(directoryPath).listFiles();
+        if (files == null) {
+            return null;
+        }
+        return Arrays.stream(files)
+            .filter(f -> f.isDirectory() || ArchiveReaders.isArchive(f))
+            .toArray(File[]::new);
+    }
+    
+    /**
+     * Validates the archives on a bounded worker pool. Workers pull the next archive
+     * in newest-first order, so results near the top of the list are confirmed first.
+     */
+    private void scanInParallel(File[] zipFiles, WorldIndex index) throws InterruptedException {
+        int workerCount = Math.min(parallelism, zipFiles.length);
+        AtomicInteger nextIndex = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(() -> {
+                int position;
+                while (!shouldStop && (position = nextIndex.getAndIncrement()) < zipFiles.length) {
+                    scanFile(position, zipFiles[position], index);
+                }
+                return null;
+            });
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(workerCount, workerThreadFactory());
+        try {
+            pool.invokeAll(workers);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private void scanFile(int position, File file, WorldIndex index) {
+        try {
+            boolean isWorld;
+            if (file.isDirectory()) {
+                // Unpacked world folders are a single stat, not worth an index entry
+                isWorld = FileUtils.isWorldFolder(file);
+            } else {
+                WorldProbe probe = index != null ? index.probe(file) : null;
+                isWorld = probe != null ? probe.isWorld() : FileUtils.locateLevelDat(file).isWorld();
+                if (isWorld && deduplicator != null) {
+                    deduplicator.add(file, probe);
+                }
+            }
+            if (isWorld) {
+                synchronized (foundWorldFiles) {
+                    // The watcher may have added it at the top already while the scan was running
+                    if (!foundWorldFiles.containsValue(file)) {
+                        foundWorldFiles.put(position, file);
+                        modifications++;
+                    }
+                }
+                Metrics.SCAN_WORLDS.increment();
+            } else {
+                Metrics.SCAN_NOT_WORLDS.increment();
+            }
+        } catch (Exception e) {
+            // Skip corrupted or invalid zip files
+            Metrics.SCAN_FAILED.increment();
+            EasyMapDownloadCore.LOGGER.debug("Skipping invalid zip file: " + file.getName());
+        }
+        filesScanned.incrementAndGet();
+    }
+    
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "WorldScanner-Worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Stops the scanning process.
+     */
+    public void stopScanning() {
+        shouldStop = true;
+        if (discovery != null) {
+            discovery.stop();
+        }
+        if (deduplicator != null) {
+            deduplicator.stop();
+        }
+    }
+    
+    /**
+     * Adds a world that appeared after the scan listed the directory at the top of the list,
+     * or moves it there if it was already found.
+     */
+    public void addWorld(File file) {
+        synchronized (foundWorldFiles) {
+            foundWorldFiles.values().remove(file);
+            foundWorldFiles.put(nextAddedPosition--, file);
+            modifications++;
+        }
+        if (deduplicator != null && file.isFile()) {
+            deduplicator.add(file);
+        }
+    }
+    
+    /**
+     * Removes a world that is no longer in the directory.
+     */
+    public void removeWorld(File file) {
+        synchronized (foundWorldFiles) {
+            if (foundWorldFiles.values().remove(file)) {
+                modifications++;
+            }
+        }
+        if (deduplicator != null) {
+            deduplicator.remove(file);
+        }
+    }
+    
+    /**
+     * Gets the currently found world files, newest first, as an unmodifiable list. Confirmed copies
+     * of the same archive are left out, only the newest one is listed.
+     * Thread-safe.
+     */
+    public List<File> getFoundWorldFiles() {
+        synchronized (foundWorldFiles) {
+            updateView();
+            return viewWorlds;
+        }
+    }
+    
+    /**
+     * Returns how many other copies of each listed archive were found, for archives that have copies.
+     * Thread-safe.
+     */
+    public Map<File, Integer> getDuplicateCounts() {
+        synchronized (foundWorldFiles) {
+            updateView();
+            return viewDuplicateCounts;
+        }
+    }
+    
+    /**
+     * Rebuilds the listed worlds and copy counts if anything changed since they were last built.
+     * Must hold {@link #foundWorldFiles}.
+     */
+    private void updateView() {
+        int version = getVersion();
+        if (version == viewVersion) {
+            return;
+        }
+        viewVersion = version;
+        if (deduplicator == null) {
+            viewWorlds = List.copyOf(foundWorldFiles.values());
+            return;
+        }
+        List<File> worlds = new ArrayList<>(foundWorldFiles.size());
+        Map<String, File> firstCopies = new HashMap<>();
+        Map<File, Integer> counts = new HashMap<>();
+        for (File file : foundWorldFiles.values()) {
+            String contentId = deduplicator.getContentId(file);
+            File first = contentId != null ? firstCopies.putIfAbsent(contentId, file) : null;
+            if (first != null) {
+                counts.merge(first, 1, Integer::sum);
+            } else {
+                worlds.add(file);
+            }
+        }
+        viewWorlds = Collections.unmodifiableList(worlds);
+        viewDuplicateCounts = Collections.unmodifiableMap(counts);
+    }
+    
+    /**
+     * Returns a number that changes whenever a world was found, added or removed, or a copy was
+     * confirmed or dropped, so callers only fetch the list when there is something new.
+     */
+    public int getVersion() {
+        return modifications + getDuplicatesVersion();
+    }
+    
+    /**
+     * Returns a number that changes whenever duplicate detection confirmed or dropped a copy,
+     * so callers know to fetch the list again after the scan finished.
+     */
+    public int getDuplicatesVersion() {
+        return deduplicator != null ? deduplicator.getVersion() : 0;
+    }
+    
+    /**
+     * Returns the directory this scanner looks at.
+     */
+    public String getDirectoryPath() {
+        return directoryPath;
+    }
+    
+    /**
+     * Returns true if the scanner is currently scanning.
+     */
+    public boolean isScanning() {
+        return isScanning;
+    }
+    
+    /**
+     * Returns the number of files scanned so far.
+     */
+    public int getFilesScanned() {
+        return filesScanned.get();
+    }
+    
+    /**
+     * Returns the total number of files to scan.
+     */
+    public int getTotalFiles() {
+        return totalFiles.get();
+    }
+    
+    /**
+     * Returns the scanning progress as a percentage (0-100).
+     */
+    public int getProgress() {
+        int total = totalFiles.get();
+        if (total == 0) return 0;
+        return (int) ((filesScanned.get() / (float) total) * 100);
+    }
+}
@@ -0,0 +1,185 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compares an installed world with a zip, either the one it came from or a newer version of the map,
+ * using the sizes and CRCs in the central directory, so only the files that differ need to be
+ * extracted again.
+ *
+ * <p>A file whose size differs is known to have changed without reading it; only files of the right
+ * size are read to compute their CRC. Files in preserved folders that the world already has are
+ * left alone, so an update keeps the player's progress.</p>
+ */
+public class WorldVerifier {
+
+    /**
+     * The folders holding the player's own data, relative to the world folder. The singleplayer
+     * player lives in level.dat instead, which an update carries over separately.
+     */
+    public static final List<String> PLAYER_DATA_FOLDERS = List.of("playerdata/", "stats/", "advancements/");
+
+    private static final byte[] LEVEL_DAT = "level.dat".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NESTED_LEVEL_DAT = "/level.dat".getBytes(StandardCharsets.UTF_8);
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final File archive;
+    private final String archivePrefix;
+    private final Path world;
+    private final List<String> preservedFolders;
+
+    /**
+     * @param archive The zip the world was installed from
+     * @param archivePrefix The folder inside the archive holding the world, with a trailing slash, or "" for the root
+     * @param world The installed world folder
+     */
+    public WorldVerifier(File archive, String archivePrefix, Path world) {
+        this(archive, archivePrefix, world, List.of());
+    }
+
+    /**
+     * @param preservedFolders Folders, relative to the world and with a trailing slash, whose files
+     *                         are kept as installed if they exist
+     */
+    public WorldVerifier(File archive, String archivePrefix, Path world, List<String> preservedFolders) {
+        this.archive = archive;
+        this.archivePrefix = archivePrefix;
+        this.world = world;
+        this.preservedFolders = preservedFolders;
+    }
+
+    /**
+     * Returns the folder of the first world in a zip, with a trailing slash, or "" if level.dat is at the root.
+     * @throws IOException if the archive has no level.dat
+     */
+    public static String findWorldPrefix(File archive) throws IOException {
+        String[] levelDat = {null};
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(archive)) {
+            directory.forEach(entry -> {
+                if (entry.nameEquals(LEVEL_DAT) || entry.nameEndsWith(NESTED_LEVEL_DAT)) {
+                    levelDat[0] = entry.getName();
+                    return false;
+                }
+                return true;
+            });
+        }
+        if (levelDat[0] == null) {
+            throw new IOException("No level.dat found in " + archive.getName());
+        }
+        return levelDat[0].substring(0, levelDat[0].length() - LEVEL_DAT.length);
+    }
+
+    /**
+     * Checks every file of the world in the archive against the installed copy.
+     * @param progress Receives the number and total size of the files to check, then each file as it is checked
+     * @return The archive entry names whose installed file is missing or differs
+     */
+    public List<String> findChangedEntries(InstallProgress progress) throws IOException {
+        Map<String, long[]> expected = readEntries();
+        long totalBytes = 0;
+        for (long[] sizeAndCrc : expected.values()) {
+            totalBytes += sizeAndCrc[0];
+        }
+        progress.start(expected.size(), totalBytes);
+
+        List<String> changed = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CRC32 crc = new CRC32();
+        for (Map.Entry<String, long[]> entry : expected.entrySet()) {
+            progress.checkCancelled();
+            String name = entry.getKey();
+            progress.entryStarted(name);
+            long size = entry.getValue()[0];
+            File installed = getInstalledFile(name);
+            if (isPreserved(name) && installed.isFile()) {
+                progress.addBytes(size);
+            } else if (!installed.isFile() || installed.length() != size || crcOf(installed, buffer, crc, progress) != entry.getValue()[1]) {
+                changed.add(name);
+            }
+            progress.entryDone();
+        }
+        return changed;
+    }
+
+    private boolean isPreserved(String entryName) {
+        return isPreservedFile(entryName.substring(archivePrefix.length()));
+    }
+
+    /**
+     * Returns true if a file, named relative to the world, is in one of the preserved folders.
+     */
+    public boolean isPreservedFile(String worldFile) {
+        for (String folder : preservedFolders) {
+            if (worldFile.startsWith(folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the files of the world in the archive, named relative to the world folder.
+     */
+    public List<String> listWorldFiles() throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String name : readEntries().keySet()) {
+            files.add(name.substring(archivePrefix.length()));
+        }
+        return files;
+    }
+
+    /**
+     * Returns where an entry of the world ends up in the installed folder.
+     * @throws IOException if the entry name points outside the world folder
+     */
+    public File getInstalledFile(String entryName) throws IOException {
+        return FileUtils.newFile(world.toFile(), entryName.substring(archivePrefix.length()));
+    }
+
+    /**
+     * Returns the size and CRC of each file in the world's folder of the archive. When a name appears
+     * more than once the last entry wins, matching what extraction leaves on disk.
+     */
+    private Map<String, long[]> readEntries() throws IOException {
+        Map<String, long[]> entries = new LinkedHashMap<>();
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(archive)) {
+            directory.forEach(entry -> {
+                if (!entry.isDirectory()) {
+                    String name = entry.getName();
+                    if (name.startsWith(archivePrefix) && name.length() > archivePrefix.length()) {
+                        entries.put(name, new long[]{entry.getUncompressedSize(), entry.getCrc()});
+                    }
+                }
+                return true;
+            });
+        }
+        return entries;
+    }
+
+    private static long crcOf(File file, ByteBuffer buffer, CRC32 crc, InstallProgress progress) throws IOException {
+        crc.reset();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer.clear();
+            int read;
+            while ((read = channel.read(buffer)) >= 0) {
+                progress.checkCancelled();
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+                progress.addBytes(read);
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,199 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Zip archives, read through their central directory without allocating per entry.
+ */
+public class ZipArchiveReader implements ArchiveReader {
+
+    private static final byte[] LEVEL_DAT = "level.dat".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NESTED_LEVEL_DAT = "/level.dat".getBytes(StandardCharsets.UTF_8);
+    private static final List<String> SUFFIXES = List.of(".zip");
+
+    @Override
+    public List<String> suffixes() {
+        return SUFFIXES;
+    }
+
+    @Override
+    public boolean isRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean forEachEntryName(File archive, Predicate<String> visitor) throws IOException {
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(archive)) {
+            return directory.forEach(entry -> visitor.test(entry.getName()));
+        }
+    }
+
+    /**
+     * Compares raw name bytes instead of decoding every entry name.
+     */
+    @Override
+    public LevelDatLocation locate(File archive, String fileName) throws IOException {
+        byte[] rootName = fileName.getBytes(StandardCharsets.UTF_8);
+        byte[] nestedSuffix = ("/" + fileName).getBytes(StandardCharsets.UTF_8);
+        LevelDatLocation[] found = {LevelDatLocation.NONE};
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(archive)) {
+            directory.forEach(entry -> {
+                if (entry.nameEquals(rootName)) {
+                    found[0] = LevelDatLocation.ROOT;
+                } else if (entry.nameEndsWith(nestedSuffix)) {
+                    found[0] = LevelDatLocation.NESTED;
+                }
+                return found[0] == LevelDatLocation.NONE;
+            });
+        }
+        return found[0];
+    }
+
+    @Override
+    public boolean contains(File archive, String text) throws IOException {
+        byte[] target = text.getBytes(StandardCharsets.UTF_8);
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(archive)) {
+            return !directory.forEach(entry -> !entry.nameContains(target));
+        }
+    }
+
+    /**
+     * Validates the archive, totals its entries and digests their CRCs in one pass over the central directory.
+     */
+    @Override
+    public WorldProbe probe(File archive) throws IOException {
+        LevelDatLocation[] found = {LevelDatLocation.NONE};
+        long[] uncompressedSize = {0};
+        long[] digest = {0};
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(archive)) {
+            directory.forEach(entry -> {
+                if (found[0] == LevelDatLocation.NONE) {
+                    if (entry.nameEquals(LEVEL_DAT)) {
+                        found[0] = LevelDatLocation.ROOT;
+                    } else if (entry.nameEndsWith(NESTED_LEVEL_DAT)) {
+                        found[0] = LevelDatLocation.NESTED;
+                    }
+                }
+                uncompressedSize[0] += entry.getUncompressedSize();
+                // Summing mixed values makes the digest independent of entry order
+                digest[0] += mix((entry.getCrc() << 32) ^ entry.getUncompressedSize());
+                return true;
+            });
+            // 0 means "no digest", so a real one never takes that value
+            return new WorldProbe(found[0], directory.getEntryCount(), uncompressedSize[0], digest[0] != 0 ? digest[0] : 1);
+        }
+    }
+
+    /**
+     * The murmur3 finalizer, spreading every input bit over the whole result.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public InputStream openWorldFile(File archive, String fileName) throws IOException {
+        ZipCentralDirectory directory = ZipCentralDirectory.open(archive);
+        try {
+            ZipCentralDirectory.EntryData entry = FileUtils.findWorldFile(directory, fileName);
+            if (entry == null) {
+                directory.close();
+                return null;
+            }
+            // The archive stays open until the caller is done with the entry
+            return new FilterInputStream(directory.openEntry(entry)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        directory.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            directory.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Extracts the archive, inflating independent entries in parallel. Archives whose central
+     * directory cannot be read are extracted sequentially from their local headers.
+     */
+    @Override
+    public void extract(File archive, File destDir, int threads, InstallProgress progress, Predicate<String> include) throws IOException {
+        ZipCentralDirectory directory;
+        try {
+            directory = ZipCentralDirectory.open(archive);
+        } catch (ZipException e) {
+            EasyMapDownloadCore.LOGGER.warn("Falling back to sequential extraction of " + archive + ": " + e.getMessage());
+            extractSequentially(archive, destDir, progress, include);
+            return;
+        }
+        try (directory) {
+            new ZipExtractor(threads).extract(directory, destDir, progress, include);
+        }
+    }
+
+    private static void extractSequentially(File archive, File destDir, InstallProgress progress, Predicate<String> include) throws IOException {
+        byte[] buffer = new byte[1024];
+        progress.start(0, 0);
+        Metrics.PEAK_BUFFER_BYTES.record(buffer.length);
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(archive))) {
+            ZipEntry zipEntry = zis.getNextEntry();
+            while (zipEntry != null) {
+                progress.checkCancelled();
+                if (!include.test(zipEntry.getName())) {
+                    zipEntry = zis.getNextEntry();
+                    continue;
+                }
+                progress.entryStarted(zipEntry.getName());
+                File newFile = FileUtils.newFile(destDir, zipEntry);
+                if (zipEntry.isDirectory()) {
+                    if (!newFile.isDirectory() && !newFile.mkdirs()) {
+                        throw new IOException("Failed to create directory " + newFile);
+                    }
+                } else {
+                    // fix for Windows-created archives
+                    File parent = newFile.getParentFile();
+                    if (!parent.isDirectory() && !parent.mkdirs()) {
+                        throw new IOException("Failed to create directory " + parent);
+                    }
+
+                    // write file content
+                    try (FileOutputStream fos = new FileOutputStream(newFile)) {
+                        int len;
+                        while ((len = zis.read(buffer)) > 0) {
+                            fos.write(buffer, 0, len);
+                            progress.addBytes(len);
+                            Metrics.BYTES_WRITTEN.add(len);
+                        }
+                    }
+                    Metrics.ENTRIES_WRITTEN.increment();
+                }
+                progress.entryDone();
+                zipEntry = zis.getNextEntry();
+            }
+            zis.closeEntry();
+        } finally {
+            Metrics.BYTES_READ.add(archive.length());
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the central directory of a zip archive in place.
+ * Only the end-of-central-directory record and the central directory itself are read,
+ * entry data is only touched when a single entry is opened explicitly. Entries are handed to a visitor through a single reused
+ * {@link Entry} cursor, so walking an archive does not allocate anything per entry.
+ */
+public final class ZipCentralDirectory implements Closeable {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int EOCD_LENGTH = 22;
+    private static final int ZIP64_EOCD_LOCATOR_LENGTH = 20;
+    private static final int CEN_HEADER_LENGTH = 46;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long entryCount;
+    private final long centralDirectoryOffset;
+    private final long centralDirectorySize;
+    /** Bytes prepended to the archive (e.g. self-extracting stubs), added to every stored offset. */
+    private final long baseOffset;
+    /**
+     * Time spent locating and walking the central directory so far, recorded once on close so each
+     * opened archive counts as one parse however often it is walked.
+     */
+    private long parseNanos;
+
+    private ZipCentralDirectory(FileChannel channel, long entryCount, long centralDirectoryOffset, long centralDirectorySize, long baseOffset) {
+        this.channel = channel;
+        this.entryCount = entryCount;
+        this.centralDirectoryOffset = centralDirectoryOffset;
+        this.centralDirectorySize = centralDirectorySize;
+        this.baseOffset = baseOffset;
+    }
+
+    /**
+     * Opens a zip archive and locates its central directory.
+     * @param zipfile The archive to open
+     * @return The central directory, which must be closed by the caller
+     * @throws ZipException if the file is not a readable zip archive
+     */
+    public static ZipCentralDirectory open(File zipfile) throws IOException {
+        long start = System.nanoTime();
+        FileChannel channel = FileChannel.open(zipfile.toPath(), StandardOpenOption.READ);
+        Metrics.ARCHIVE_OPEN.recordSince(start);
+        start = System.nanoTime();
+        try {
+            ZipCentralDirectory directory = locate(channel);
+            directory.parseNanos = System.nanoTime() - start;
+            return directory;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ZipCentralDirectory locate(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < EOCD_LENGTH) {
+            throw new ZipException("File too small to be a zip archive");
+        }
+
+        // The end-of-central-directory record sits in the last 22 bytes plus an optional comment
+        int tailLength = (int) Math.min(fileSize, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+        long tailStart = fileSize - tailLength;
+        ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, tailStart);
+
+        int eocd = -1;
+        for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE && i + EOCD_LENGTH + (tail.getShort(i + 20) & 0xFFFF) <= tailLength) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd == -1) {
+            throw new ZipException("End of central directory record not found");
+        }
+
+        long eocdPosition = tailStart + eocd;
+        long entryCount = tail.getShort(eocd + 10) & 0xFFFF;
+        long cdSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+        long cdOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+        long cdEnd = eocdPosition;
+
+        if (entryCount == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) {
+            long locatorPosition = eocdPosition - ZIP64_EOCD_LOCATOR_LENGTH;
+            if (locatorPosition >= 0) {
+                ByteBuffer locator = ByteBuffer.allocate(ZIP64_EOCD_LOCATOR_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, locator, locatorPosition);
+                if (locator.getInt(0) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+                    long zip64Position = locator.getLong(8);
+                    ByteBuffer zip64 = ByteBuffer.allocate(56).order(ByteOrder.LITTLE_ENDIAN);
+                    if (zip64Position >= 0 && zip64Position + 56 <= locatorPosition) {
+                        readFully(channel, zip64, zip64Position);
+                        if (zip64.getInt(0) == ZIP64_EOCD_SIGNATURE) {
+                            entryCount = zip64.getLong(32);
+                            cdSize = zip64.getLong(40);
+                            cdOffset = zip64.getLong(48);
+                            cdEnd = zip64Position;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (cdSize > cdEnd || entryCount < 0) {
+            throw new ZipException("Invalid central directory size");
+        }
+        // Every entry takes at least a bare header, so a count that does not fit is a lie, not a size hint
+        if (entryCount > cdSize / CEN_HEADER_LENGTH) {
+            throw new ZipException("Invalid central directory entry count");
+        }
+        long baseOffset = cdEnd - cdSize - cdOffset;
+        if (baseOffset < 0) {
+            throw new ZipException("Invalid central directory offset");
+        }
+        return new ZipCentralDirectory(channel, entryCount, cdOffset, cdSize, baseOffset);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new ZipException("Unexpected end of zip archive");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Walks the central directory, handing every entry to the visitor until it returns false.
+     * The {@link Entry} passed to the visitor is reused and only valid during the callback.
+     * @return true if every entry was visited, false if the visitor stopped early
+     */
+    public boolean forEach(EntryVisitor visitor) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return walk(visitor);
+        } finally {
+            parseNanos += System.nanoTime() - start;
+        }
+    }
+
+    private boolean walk(EntryVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(centralDirectorySize, CEN_HEADER_LENGTH)))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.limit(0);
+        Entry entry = new Entry(this);
+        long position = baseOffset + centralDirectoryOffset;
+        long end = position + centralDirectorySize;
+
+        for (long i = 0; i < entryCount; i++) {
+            buffer = ensureAvailable(buffer, CEN_HEADER_LENGTH, position, end);
+            int start = buffer.position();
+            if (buffer.getInt(start) != CEN_SIGNATURE) {
+                throw new ZipException("Invalid central directory header");
+            }
+            int nameLength = buffer.getShort(start + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(start + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(start + 32) & 0xFFFF;
+            int recordLength = CEN_HEADER_LENGTH + nameLength + extraLength + commentLength;
+
+            buffer = ensureAvailable(buffer, recordLength, position, end);
+            start = buffer.position();
+            entry.load(buffer, start, nameLength, extraLength);
+
+            buffer.position(start + recordLength);
+            position += recordLength;
+            if (!visitor.visit(entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure at least {@code length} unread bytes are in the buffer, refilling from the channel.
+     * The channel position of the buffer's read position is {@code position}.
+     */
+    private ByteBuffer ensureAvailable(ByteBuffer buffer, int length, long position, long end) throws IOException {
+        if (buffer.remaining() >= length) {
+            return buffer;
+        }
+        if (position + length > end) {
+            throw new ZipException("Truncated central directory");
+        }
+        if (buffer.capacity() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        long readPosition = position + buffer.position();
+        while (buffer.position() < length) {
+            int limit = (int) Math.min(buffer.capacity(), buffer.position() + (end - readPosition));
+            buffer.limit(limit);
+            int read = channel.read(buffer, readPosition);
+            if (read <= 0) {
+                throw new ZipException("Truncated central directory");
+            }
+            readPosition += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Finds the first entry with exactly the given name.
+     * @return The entry's data location, or null if there is no such entry
+     */
+    public EntryData findEntry(String name) throws IOException {
+        byte[] target = name.getBytes(StandardCharsets.UTF_8);
+        EntryData[] found = {null};
+        forEach(entry -> {
+            if (entry.nameEquals(target)) {
+                found[0] = new EntryData(name, entry.getMethod(), entry.getCrc(), entry.getCompressedSize(),
+                    entry.getUncompressedSize(), entry.getLocalHeaderOffset());
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * Opens a stream over an entry's uncompressed data, read straight from the archive.
+     * The stream does not need to be read to the end, but must be used before this directory is closed.
+     * @throws ZipException if the entry uses a compression method other than STORED or DEFLATED
+     */
+    public InputStream openEntry(EntryData entry) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, entry.localHeaderOffset());
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.name());
+        }
+        long dataStart = entry.localHeaderOffset() + LOCAL_HEADER_LENGTH
+            + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+
+        switch (entry.method()) {
+            case 0:
+                return new ChannelRangeInputStream(channel, dataStart, entry.compressedSize(), false);
+            case 8:
+                // nowrap inflation may need a dummy byte after the data, so the range stream supplies one
+                return new InflaterInputStream(new ChannelRangeInputStream(channel, dataStart, entry.compressedSize(), true),
+                    new Inflater(true), 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        inf.end();
+                    }
+                };
+            default:
+                throw new ZipException("Unsupported compression method " + entry.method() + " for " + entry.name());
+        }
+    }
+
+    /**
+     * Returns the number of entries recorded in the end-of-central-directory record.
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the channel the archive was opened with. Positional reads on it are thread-safe.
+     */
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            Metrics.CENTRAL_DIRECTORY_PARSE.record(parseNanos);
+        }
+        channel.close();
+    }
+
+    /**
+     * Where an entry's data is in the archive, kept after the walk that found it.
+     */
+    public record EntryData(String name, int method, long crc, long compressedSize, long uncompressedSize, long localHeaderOffset) {
+    }
+
+    /**
+     * Reads a byte range of the archive with positional reads, optionally followed by one zero byte.
+     */
+    private static final class ChannelRangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+        private boolean dummyBytePending;
+
+        ChannelRangeInputStream(FileChannel channel, long position, long length, boolean appendDummyByte) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+            this.dummyBytePending = appendDummyByte;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                if (dummyBytePending) {
+                    dummyBytePending = false;
+                    bytes[offset] = 0;
+                    return 1;
+                }
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, (int) Math.min(length, remaining));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new ZipException("Unexpected end of zip archive");
+            }
+            position += read;
+            remaining -= read;
+            return read;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        /**
+         * @return true to keep walking, false to stop
+         */
+        boolean visit(Entry entry) throws IOException;
+    }
+
+    /**
+     * A view of the central directory record currently being visited.
+     */
+    public static final class Entry {
+
+        private final ZipCentralDirectory directory;
+        private ByteBuffer buffer;
+        private int nameOffset;
+        private int nameLength;
+        private int flags;
+        private int method;
+        private long crc;
+        private long compressedSize;
+        private long uncompressedSize;
+        private long localHeaderOffset;
+
+        private Entry(ZipCentralDirectory directory) {
+            this.directory = directory;
+        }
+
+        private void load(ByteBuffer buffer, int start, int nameLength, int extraLength) throws ZipException {
+            this.buffer = buffer;
+            this.nameOffset = start + CEN_HEADER_LENGTH;
+            this.nameLength = nameLength;
+            this.flags = buffer.getShort(start + 8) & 0xFFFF;
+            this.method = buffer.getShort(start + 10) & 0xFFFF;
+            this.crc = buffer.getInt(start + 16) & 0xFFFFFFFFL;
+            this.compressedSize = buffer.getInt(start + 20) & 0xFFFFFFFFL;
+            this.uncompressedSize = buffer.getInt(start + 24) & 0xFFFFFFFFL;
+            this.localHeaderOffset = buffer.getInt(start + 42) & 0xFFFFFFFFL;
+
+            if (uncompressedSize == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+                readZip64Extra(nameOffset + nameLength, extraLength);
+            }
+        }
+
+        private void readZip64Extra(int extraStart, int extraLength) throws ZipException {
+            int position = extraStart;
+            int end = extraStart + extraLength;
+            while (position + 4 <= end) {
+                int tag = buffer.getShort(position) & 0xFFFF;
+                int size = buffer.getShort(position + 2) & 0xFFFF;
+                int data = position + 4;
+                if (data + size > end) {
+                    break;
+                }
+                if (tag == 0x0001) {
+                    int field = data;
+                    if (uncompressedSize == 0xFFFFFFFFL && field + 8 <= data + size) {
+                        uncompressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL && field + 8 <= data + size) {
+                        compressedSize = buffer.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == 0xFFFFFFFFL && field + 8 <= data + size) {
+                        localHeaderOffset = buffer.getLong(field);
+                    }
+                    if (uncompressedSize < 0 || compressedSize < 0 || localHeaderOffset < 0) {
+                        throw new ZipException("Invalid zip64 extra field");
+                    }
+                    return;
+                }
+                position = data + size;
+            }
+        }
+
+        /**
+         * Returns true if the entry name is exactly the given bytes.
+         */
+        public boolean nameEquals(byte[] name) {
+            return nameLength == name.length && regionMatches(0, name);
+        }
+
+        /**
+         * Returns true if the entry name ends with the given bytes.
+         */
+        public boolean nameEndsWith(byte[] suffix) {
+            return nameLength >= suffix.length && regionMatches(nameLength - suffix.length, suffix);
+        }
+
+        /**
+         * Returns true if the given bytes appear anywhere in the entry name.
+         */
+        public boolean nameContains(byte[] part) {
+            for (int i = 0; i + part.length <= nameLength; i++) {
+                if (regionMatches(i, part)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean regionMatches(int offset, byte[] bytes) {
+            int base = nameOffset + offset;
+            for (int i = 0; i < bytes.length; i++) {
+                if (buffer.get(base + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Decodes the entry name. Unlike the other accessors this allocates, so only call it when needed.
+         */
+        public String getName() {
+            byte[] bytes = new byte[nameLength];
+            buffer.get(nameOffset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public boolean isDirectory() {
+            return nameLength > 0 && buffer.get(nameOffset + nameLength - 1) == '/';
+        }
+
+        public int getFlags() {
+            return flags;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getUncompressedSize() {
+            return uncompressedSize;
+        }
+
+        /**
+         * Returns the absolute position of the entry's local file header in the archive.
+         */
+        public long getLocalHeaderOffset() {
+            return directory.baseOffset + localHeaderOffset;
+        }
+    }
+}
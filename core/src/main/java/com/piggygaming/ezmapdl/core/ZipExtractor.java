@@ -0,0 +1,412 @@
+package com.piggygaming.ezmapdl.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Extracts zip archives using the central directory for random access, so independent entries
+ * are inflated in parallel. Each worker owns its buffers and inflater for the whole extraction,
+ * and parent directories are created once and remembered.
+ */
+public class ZipExtractor {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    /** Heap input and output buffers plus the direct buffer each worker holds. */
+    private static final int WORKER_BUFFER_BYTES = 3 * BUFFER_SIZE;
+
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+
+    private final int parallelism;
+
+    public ZipExtractor() {
+        this(defaultParallelism());
+    }
+
+    /**
+     * @param parallelism The maximum number of entries extracted at the same time
+     */
+    public ZipExtractor(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public static int defaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Extracts every entry of the archive into the destination directory.
+     * @throws ZipException if the central directory cannot be read or an entry is damaged
+     */
+    public void extract(File zipfile, File destDir) throws IOException {
+        try (ZipCentralDirectory directory = ZipCentralDirectory.open(zipfile)) {
+            extract(directory, destDir, new InstallProgress());
+        }
+    }
+
+    /**
+     * Extracts every entry of an already opened archive into the destination directory.
+     * @param progress Receives the totals from the central directory, then bytes and entries as they are written
+     * @throws ZipException if an entry is damaged or uses an unsupported compression method
+     */
+    public void extract(ZipCentralDirectory directory, File destDir, InstallProgress progress) throws IOException {
+        extract(directory, destDir, progress, name -> true);
+    }
+
+    /**
+     * Extracts the entries of an already opened archive whose names pass the filter.
+     * @param include Called with each entry name, returns true to extract the entry
+     */
+    public void extract(ZipCentralDirectory directory, File destDir, InstallProgress progress, Predicate<String> include) throws IOException {
+        EntryTable entries = EntryTable.read(directory, include);
+        progress.start(entries.size, entries.totalUncompressedSize());
+        Set<File> createdDirectories = ConcurrentHashMap.newKeySet();
+
+        // Directory entries first, so workers only ever need to create missing parents
+        for (int i = 0; i < entries.size; i++) {
+            if (entries.isDirectory(i)) {
+                File dir = FileUtils.newFile(destDir, entries.names[i]);
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("Failed to create directory " + dir);
+                }
+                createdDirectories.add(dir);
+                progress.entryDone();
+            }
+        }
+
+        // Largest entries first so one big region file does not end up last on a single worker
+        Integer[] order = entries.fileIndicesBySizeDescending();
+        if (order.length == 0) {
+            return;
+        }
+        int workerCount = Math.min(parallelism, order.length);
+        Metrics.PEAK_BUFFER_BYTES.record((long) workerCount * WORKER_BUFFER_BYTES);
+        if (workerCount == 1) {
+            new Worker(directory.getChannel(), entries, destDir, createdDirectories, progress).extractAll(order, new AtomicInteger());
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(directory.getChannel(), entries, destDir, createdDirectories, progress);
+            workers.add(() -> {
+                worker.extractAll(order, next);
+                return null;
+            });
+        }
+        runWorkers(workers, next, order.length);
+    }
+
+    private void runWorkers(List<Callable<Void>> workers, AtomicInteger next, int total) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers.size(), runnable -> {
+            Thread thread = new Thread(runnable, "ZipExtractor-Worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>(workers.size());
+            for (Callable<Void> worker : workers) {
+                futures.add(pool.submit(worker));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Stop the other workers from picking up more entries
+                    next.set(total);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new IOException("Extraction failed", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            next.set(total);
+            Thread.currentThread().interrupt();
+            throw new IOException("Extraction interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The central directory flattened into arrays. When a name appears more than once the last
+     * entry wins, matching what sequential extraction leaves on disk.
+     */
+    private static final class EntryTable {
+        int size;
+        String[] names;
+        int[] methods;
+        long[] crcs;
+        long[] compressedSizes;
+        long[] uncompressedSizes;
+        long[] localHeaderOffsets;
+
+        static EntryTable read(ZipCentralDirectory directory, Predicate<String> include) throws IOException {
+            int capacity = (int) Math.min(directory.getEntryCount(), Integer.MAX_VALUE - 8);
+            EntryTable table = new EntryTable();
+            table.names = new String[capacity];
+            table.methods = new int[capacity];
+            table.crcs = new long[capacity];
+            table.compressedSizes = new long[capacity];
+            table.uncompressedSizes = new long[capacity];
+            table.localHeaderOffsets = new long[capacity];
+
+            Map<String, Integer> positions = new HashMap<>((int) Math.min(capacity * 2L, 1 << 30));
+            directory.forEach(entry -> {
+                String name = entry.getName();
+                if (!include.test(name)) {
+                    return true;
+                }
+                if ((entry.getFlags() & 1) != 0) {
+                    throw new ZipException("Encrypted entries are not supported: " + name);
+                }
+                Integer existing = positions.get(name);
+                int index;
+                if (existing != null) {
+                    index = existing;
+                } else {
+                    index = table.size++;
+                    positions.put(name, index);
+                }
+                table.names[index] = name;
+                table.methods[index] = entry.getMethod();
+                table.crcs[index] = entry.getCrc();
+                table.compressedSizes[index] = entry.getCompressedSize();
+                table.uncompressedSizes[index] = entry.getUncompressedSize();
+                table.localHeaderOffsets[index] = entry.getLocalHeaderOffset();
+                return true;
+            });
+            return table;
+        }
+
+        boolean isDirectory(int index) {
+            return names[index].endsWith("/");
+        }
+
+        long totalUncompressedSize() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += uncompressedSizes[i];
+            }
+            return total;
+        }
+
+        Integer[] fileIndicesBySizeDescending() {
+            List<Integer> files = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (!isDirectory(i)) {
+                    files.add(i);
+                }
+            }
+            Integer[] order = files.toArray(new Integer[0]);
+            Arrays.sort(order, (a, b) -> Long.compare(uncompressedSizes[b], uncompressedSizes[a]));
+            return order;
+        }
+    }
+
+    /**
+     * Extracts entries pulled from a shared counter, reusing its buffers and inflater for every entry.
+     */
+    private static final class Worker {
+        private final FileChannel archive;
+        private final EntryTable entries;
+        private final File destDir;
+        private final Set<File> createdDirectories;
+        private final InstallProgress progress;
+        private final ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        private final byte[] input = new byte[BUFFER_SIZE];
+        private final byte[] output = new byte[BUFFER_SIZE];
+        /** Used for STORED entries, so their bytes go from the archive to the output without a heap copy. */
+        private final ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+
+        Worker(FileChannel archive, EntryTable entries, File destDir, Set<File> createdDirectories, InstallProgress progress) {
+            this.archive = archive;
+            this.entries = entries;
+            this.destDir = destDir;
+            this.createdDirectories = createdDirectories;
+            this.progress = progress;
+        }
+
+        void extractAll(Integer[] order, AtomicInteger next) throws IOException {
+            try {
+                int position;
+                while ((position = next.getAndIncrement()) < order.length) {
+                    extractEntry(order[position]);
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private void extractEntry(int index) throws IOException {
+            progress.checkCancelled();
+            String name = entries.names[index];
+            progress.entryStarted(name);
+            File newFile = FileUtils.newFile(destDir, name);
+
+            // fix for Windows-created archives
+            File parent = newFile.getParentFile();
+            if (!createdDirectories.contains(parent)) {
+                // Another worker may create the same folder between the check and mkdirs, so check again after
+                if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                    throw new IOException("Failed to create directory " + parent);
+                }
+                createdDirectories.add(parent);
+            }
+
+            long dataStart = findData(entries.localHeaderOffsets[index], name);
+            crc.reset();
+            try (FileChannel out = FileChannel.open(newFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long written;
+                switch (entries.methods[index]) {
+                    case METHOD_STORED -> written = copyStored(out, dataStart, entries.compressedSizes[index]);
+                    case METHOD_DEFLATED -> written = inflate(out, dataStart, entries.compressedSizes[index], name);
+                    default -> throw new ZipException("Unsupported compression method " + entries.methods[index] + " for " + name);
+                }
+                if (written != entries.uncompressedSizes[index]) {
+                    throw new ZipException("Invalid entry size for " + name);
+                }
+                if (crc.getValue() != entries.crcs[index]) {
+                    throw new ZipException("Invalid entry CRC for " + name);
+                }
+                Metrics.BYTES_READ.add(entries.compressedSizes[index]);
+                Metrics.BYTES_WRITTEN.add(written);
+                Metrics.ENTRIES_WRITTEN.increment();
+            }
+            progress.entryDone();
+        }
+
+        /**
+         * Reads the local file header and returns where the entry's data starts.
+         */
+        private long findData(long localHeaderOffset, String name) throws IOException {
+            header.clear();
+            readFully(header, localHeaderOffset);
+            if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid local header for " + name);
+            }
+            int nameLength = header.getShort(26) & 0xFFFF;
+            int extraLength = header.getShort(28) & 0xFFFF;
+            return localHeaderOffset + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+        }
+
+        /**
+         * Copies a STORED entry's bytes straight from the archive, checking the CRC on the way through.
+         * The bytes go through the worker's direct buffer rather than a mapped region: mappings are only
+         * released by the garbage collector, and on Windows the archive cannot be deleted until then.
+         */
+        private long copyStored(FileChannel out, long position, long length) throws IOException {
+            long remaining = length;
+            while (remaining > 0) {
+                progress.checkCancelled();
+                direct.clear();
+                direct.limit((int) Math.min(direct.capacity(), remaining));
+                int read = archive.read(direct, position);
+                if (read < 0) {
+                    throw new ZipException("Unexpected end of zip archive");
+                }
+                direct.flip();
+                crc.update(direct);
+                direct.flip();
+                writeFully(out, direct);
+                progress.addBytes(read);
+                position += read;
+                remaining -= read;
+            }
+            return length;
+        }
+
+        private long inflate(FileChannel out, long position, long compressedLength, String name) throws IOException {
+            inflater.reset();
+            ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+            long remaining = compressedLength;
+            long written = 0;
+            boolean suppliedDummyByte = false;
+            try {
+                while (!inflater.finished()) {
+                    if (inflater.needsInput()) {
+                        if (remaining <= 0) {
+                            // zlib in nowrap mode may need one dummy byte past the data to finish
+                            if (suppliedDummyByte) {
+                                throw new ZipException("Unexpected end of deflated data for " + name);
+                            }
+                            suppliedDummyByte = true;
+                            input[0] = 0;
+                            inflater.setInput(input, 0, 1);
+                            continue;
+                        }
+                        inputBuffer.clear();
+                        inputBuffer.limit((int) Math.min(input.length, remaining));
+                        int read = archive.read(inputBuffer, position);
+                        if (read < 0) {
+                            throw new ZipException("Unexpected end of zip archive");
+                        }
+                        position += read;
+                        remaining -= read;
+                        inflater.setInput(input, 0, read);
+                    }
+                    int inflated = inflater.inflate(output);
+                    if (inflated > 0) {
+                        progress.checkCancelled();
+                        crc.update(output, 0, inflated);
+                        writeFully(out, ByteBuffer.wrap(output, 0, inflated));
+                        progress.addBytes(inflated);
+                        written += inflated;
+                    } else if (inflater.needsDictionary()) {
+                        throw new ZipException("Unsupported preset dictionary in " + name);
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid deflated data for " + name + ": " + e.getMessage());
+            }
+            return written;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = archive.read(buffer, position);
+                if (read < 0) {
+                    throw new ZipException("Unexpected end of zip archive");
+                }
+                position += read;
+            }
+        }
+
+        private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.piggygaming.ezmapdl;
+
+import com.piggygaming.ezmapdl.core.ArchiveReaders;
+import com.piggygaming.ezmapdl.core.InstallMode;
+import com.piggygaming.ezmapdl.core.InstalledWorlds;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.text.Text;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * Asked before installing an archive that is already installed: skip it, replace the installed
+ * world, re-verify it against the archive, or install another copy.
+ */
+@Environment(EnvType.CLIENT)
+public class AlreadyInstalledScreen extends Screen {
+
+    private final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("d/M/yy");
+
+    private final Screen parent;
+    private final MinecraftClient client;
+    private final File archive;
+    private final InstalledWorlds.Installation installation;
+    private final Consumer<InstallMode> onChosen;
+
+    /**
+     * @param onChosen Called with the chosen mode; not called if the user skips
+     */
+    public AlreadyInstalledScreen(Screen parent, File archive, InstalledWorlds.Installation installation, Consumer<InstallMode> onChosen) {
+        super(Text.literal("Already installed"));
+        this.parent = parent;
+        this.client = MinecraftClient.getInstance();
+        this.archive = archive;
+        this.installation = installation;
+        this.onChosen = onChosen;
+    }
+
+    @Override
+    protected void init() {
+        int y = this.height / 2 + 20;
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Skip"), (button) -> {
+            this.client.setScreen(this.parent);
+        }).dimensions(this.width / 2 - 205, y, 100, 20).build());
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Replace"), (button) -> {
+            onChosen.accept(InstallMode.REPLACE);
+        }).dimensions(this.width / 2 - 102, y, 100, 20).build());
+
+        // Re-verifying compares against the CRCs in the zip central directory, other formats have none
+        ButtonWidget verify = ButtonWidget.builder(Text.literal("Re-verify"), (button) -> {
+            onChosen.accept(InstallMode.VERIFY);
+        }).dimensions(this.width / 2 + 2, y, 100, 20).build();
+        verify.active = ArchiveReaders.forFileOrZip(archive) == ArchiveReaders.ZIP;
+        this.addDrawableChild(verify);
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Install Copy"), (button) -> {
+            onChosen.accept(InstallMode.NEW);
+        }).dimensions(this.width / 2 + 105, y, 100, 20).build());
+    }
+
+    @Override
+    public void close() {
+        this.client.setScreen(this.parent);
+    }
+
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        super.renderBackground(context, mouseX, mouseY, delta);
+        super.render(context, mouseX, mouseY, delta);
+        context.drawCenteredTextWithShadow(this.textRenderer, this.title, this.width / 2, this.height / 2 - 40, 16777215);
+        String installedAs = this.textRenderer.trimToWidth(archive.getName() + " is installed as \"" + installation.worldFolder() + "\"", this.width - 40);
+        context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(installedAs), this.width / 2, this.height / 2 - 20, 11184810);
+        context.drawCenteredTextWithShadow(this.textRenderer, Text.literal("Installed " + DATE_FORMAT.format(new Date(installation.installedAt()))),
+            this.width / 2, this.height / 2 - 8, 8421504);
+    }
+}
@@ -11,8 +11,10 @@ import net.minecraft.screen.ScreenTexts;
 import net.minecraft.text.Text;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -30,6 +32,12 @@ public class DirectoryBrowserScreen extends Screen {
     private int scrollOffset = 0;
     private boolean showDrives = false;
     private static final int MAX_VISIBLE_DIRECTORIES = 10;
+    private static final Comparator<DirectoryListing.Entry> BY_PATH = Comparator.comparing(DirectoryListing.Entry::path);
+    /** The listing being shown, how many of its entries were taken in, and those entries sorted. */
+    private DirectoryListing listing;
+    private int entriesTaken;
+    private final List<DirectoryListing.Entry> entries = new ArrayList<>();
+    private final List<DirectoryListing.Entry> newEntries = new ArrayList<>();
     
     @FunctionalInterface
     public interface DirectorySelectCallback {
@@ -56,10 +64,11 @@ public class DirectoryBrowserScreen extends Screen {
             String path = this.pathField.getText();
             File dir = new File(path);
             if (dir.exists() && dir.isDirectory()) {
-                this.currentPath = dir.getAbsolutePath();
-                this.pathField.setText(this.currentPath);
-                showDrives = false;
-                refreshDirectoryList();
+                // Going to the folder already shown reads it again
+                if (!showDrives && dir.getAbsolutePath().equals(currentPath)) {
+                    DirectoryLister.get().invalidate(Path.of(currentPath));
+                }
+                navigateTo(dir.getAbsolutePath());
             }
         }).dimensions(this.width / 2 + 155, 20, 40, 20).build());
         
@@ -68,19 +77,15 @@ public class DirectoryBrowserScreen extends Screen {
             File current = new File(currentPath);
             File parent = current.getParentFile();
             if (parent != null && parent.exists()) {
-                this.currentPath = parent.getAbsolutePath();
-                this.pathField.setText(this.currentPath);
-                showDrives = false;
-                refreshDirectoryList();
+                navigateTo(parent.getAbsolutePath());
             }
         }).dimensions(this.width / 2 - 150, 45, 80, 20).build());
         
         // List drives/roots button
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Drives"), (button) -> {
-            scrollOffset = 0;
             showDrives = true;
             this.pathField.setText("[Drives]");
-            refreshDirectoryList();
+            startListing();
         }).dimensions(this.width / 2 - 65, 45, 60, 20).build());
         
         // Confirm button
@@ -105,48 +110,94 @@ public class DirectoryBrowserScreen extends Screen {
             }).dimensions(this.width / 2 + 10, 45, 140, 20).build());
         }
         
+        if (listing == null) {
+            startListing();
+        } else {
+            refreshDirectoryList();
+        }
+    }
+    
+    private void navigateTo(String path) {
+        this.currentPath = path;
+        this.pathField.setText(this.currentPath);
+        showDrives = false;
+        startListing();
+    }
+    
+    /**
+     * Shows the listing of the current directory or the drives, which fills in from a background thread.
+     */
+    private void startListing() {
+        DirectoryLister lister = DirectoryLister.get();
+        showListing(showDrives ? lister.listRoots() : lister.list(Path.of(currentPath)), 0);
+    }
+    
+    private void showListing(DirectoryListing newListing, int scroll) {
+        listing = newListing;
+        entriesTaken = 0;
+        entries.clear();
+        scrollOffset = scroll;
+        takeNewEntries();
         refreshDirectoryList();
     }
     
-    private void refreshDirectoryList() {
-        // Clear existing directory buttons
-        directoryButtons.forEach(this::remove);
-        directoryButtons.clear();
-        
-        File current = new File(currentPath);
-        File[] files;
-        
-        if (showDrives) {
-            // Show drives/roots
-            files = File.listRoots();
-        } else {
-            files = current.listFiles(File::isDirectory);
+    /**
+     * Inserts entries that arrived since the last call in sorted order.
+     * @return The lowest position an entry was inserted at, or -1 if nothing arrived
+     */
+    private int takeNewEntries() {
+        newEntries.clear();
+        entriesTaken += listing.copyFrom(entriesTaken, newEntries);
+        int lowest = -1;
+        for (DirectoryListing.Entry entry : newEntries) {
+            int position = Collections.binarySearch(entries, entry, BY_PATH);
+            position = position < 0 ? -position - 1 : position;
+            entries.add(position, entry);
+            lowest = lowest < 0 ? position : Math.min(lowest, position);
+        }
+        return lowest;
+    }
+    
+    @Override
+    public void tick() {
+        super.tick();
+        if (listing == null) {
+            return;
         }
         
-        if (files == null) {
-            files = new File[0];
+        // A stale cached listing gets swapped for the fresh one once that has been read completely
+        if (!showDrives) {
+            DirectoryListing current = DirectoryLister.get().getCurrent(listing.getDirectory());
+            if (current != null && current != listing && current.isComplete()) {
+                showListing(current, scrollOffset);
+            }
         }
         
-        // Sort directories
-        Arrays.sort(files);
+        // Only rebuild the buttons when new entries land in or before the visible page, or add a page
+        int shownBefore = entries.size();
+        int lowest = takeNewEntries();
+        if (lowest >= 0 && (lowest < scrollOffset + MAX_VISIBLE_DIRECTORIES || shownBefore <= scrollOffset + MAX_VISIBLE_DIRECTORIES)) {
+            refreshDirectoryList();
+        }
+    }
+    
+    private void refreshDirectoryList() {
+        // Clear existing directory buttons
+        directoryButtons.forEach(this::remove);
+        directoryButtons.clear();
         
         int yPos = 75;
         int buttonIndex = 0;
         
-        for (int i = scrollOffset; i < files.length && buttonIndex < MAX_VISIBLE_DIRECTORIES; i++) {
-            File dir = files[i];
-            final String dirPath = dir.getAbsolutePath();
+        scrollOffset = Math.max(0, Math.min(scrollOffset, entries.size() - MAX_VISIBLE_DIRECTORIES));
+        for (int i = scrollOffset; i < entries.size() && buttonIndex < MAX_VISIBLE_DIRECTORIES; i++) {
+            DirectoryListing.Entry dir = entries.get(i);
+            final String dirPath = dir.path().toAbsolutePath().toString();
             
-            String displayName = showDrives ? (dir.getAbsolutePath() + (dir.getTotalSpace() > 0 ? " (" + dir.getTotalSpace() / 1073741824 + " GB)" : "")) : ("📁 " + dir.getName());
+            String displayName = showDrives ? (dir.name() + (dir.totalSpace() > 0 ? " (" + dir.totalSpace() / 1073741824 + " GB)" : "")) : ("📁 " + dir.name());
             ButtonWidget button = ButtonWidget.builder(
                 Text.literal(displayName),
-                (btn) -> {
-                    this.currentPath = dirPath;
-                    this.pathField.setText(this.currentPath);
-                    scrollOffset = 0;
-                    showDrives = false;
-                    refreshDirectoryList();
-                }
+                (btn) -> navigateTo(dirPath)
             ).dimensions(this.width / 2 - 150, yPos, 300, 20).build();
             
             this.addDrawableChild(button);
@@ -156,20 +207,20 @@ public class DirectoryBrowserScreen extends Screen {
             buttonIndex++;
         }
         
-        // Scroll buttons if needed
-        if (files.length > MAX_VISIBLE_DIRECTORIES) {
+        // Scroll buttons if needed, tracked with the rest so a rebuild removes them too
+        if (entries.size() > MAX_VISIBLE_DIRECTORIES) {
             if (scrollOffset > 0) {
-                this.addDrawableChild(ButtonWidget.builder(Text.literal("▲ Previous"), (button) -> {
+                directoryButtons.add(this.addDrawableChild(ButtonWidget.builder(Text.literal("▲ Previous"), (button) -> {
                     scrollOffset = Math.max(0, scrollOffset - MAX_VISIBLE_DIRECTORIES);
                     refreshDirectoryList();
-                }).dimensions(this.width / 2 - 150, yPos, 145, 20).build());
+                }).dimensions(this.width / 2 - 150, yPos, 145, 20).build()));
             }
             
-            if (scrollOffset + MAX_VISIBLE_DIRECTORIES < files.length) {
-                this.addDrawableChild(ButtonWidget.builder(Text.literal("▼ Next"), (button) -> {
+            if (scrollOffset + MAX_VISIBLE_DIRECTORIES < entries.size()) {
+                directoryButtons.add(this.addDrawableChild(ButtonWidget.builder(Text.literal("▼ Next"), (button) -> {
                     scrollOffset += MAX_VISIBLE_DIRECTORIES;
                     refreshDirectoryList();
-                }).dimensions(this.width / 2 + 5, yPos, 145, 20).build());
+                }).dimensions(this.width / 2 + 5, yPos, 145, 20).build()));
             }
         }
     }
@@ -183,20 +234,23 @@ public class DirectoryBrowserScreen extends Screen {
         
         // Title
         context.drawCenteredTextWithShadow(this.textRenderer, this.title, this.width / 2, 5, 16777215);
+        
+        if (listing != null && listing.getError() != null) {
+            context.drawCenteredTextWithShadow(this.textRenderer, Text.literal("Could not open folder: " + listing.getError()), this.width / 2, this.height - 45, 16733525);
+        } else if (listing != null && !listing.isComplete()) {
+            context.drawCenteredTextWithShadow(this.textRenderer, Text.literal("Listing... " + entries.size() + " folders"), this.width / 2, this.height - 45, 16777045);
+        }
     }
     
     @Override
     public boolean mouseScrolled(double mouseX, double mouseY, double horizontalAmount, double verticalAmount) {
-        // Scroll through directories with mouse wheel
-        File current = new File(currentPath);
-        File[] files = current.listFiles(File::isDirectory);
-        
-        if (files != null && files.length > MAX_VISIBLE_DIRECTORIES) {
+        // Scroll through the entries already listed, the directory is not read again
+        if (entries.size() > MAX_VISIBLE_DIRECTORIES) {
             if (verticalAmount > 0) {
                 scrollOffset = Math.max(0, scrollOffset - 1);
                 refreshDirectoryList();
             } else if (verticalAmount < 0) {
-                scrollOffset = Math.min(files.length - MAX_VISIBLE_DIRECTORIES, scrollOffset + 1);
+                scrollOffset = Math.min(entries.size() - MAX_VISIBLE_DIRECTORIES, scrollOffset + 1);
                 refreshDirectoryList();
             }
         }
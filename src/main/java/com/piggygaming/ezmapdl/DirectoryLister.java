@@ -0,0 +1,170 @@
+package com.piggygaming.ezmapdl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lists directories on background threads for the directory browser, so slow network shares and
+ * huge folders never block the render thread.
+ *
+ * <p>Listings are cached per directory. A cached listing is returned right away and checked against
+ * the directory's modification time in the background; if the directory changed, a fresh listing
+ * replaces it in the cache and callers pick it up through {@link #getCurrent(Path)}.</p>
+ */
+public class DirectoryLister {
+
+    private static final int MAX_CACHED_DIRECTORIES = 64;
+    private static final long ROOTS_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final DirectoryLister INSTANCE = new DirectoryLister();
+
+    private final ExecutorService executor;
+    /** Listings by directory, least recently used first. Guarded by itself. */
+    private final LinkedHashMap<Path, DirectoryListing> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, DirectoryListing> eldest) {
+            return size() > MAX_CACHED_DIRECTORIES;
+        }
+    };
+    private volatile DirectoryListing roots;
+
+    private DirectoryLister() {
+        AtomicInteger count = new AtomicInteger();
+        // Two threads, so one stuck on an unreachable share does not hold up everything else
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "EasyMapDownload-Listing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static DirectoryLister get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the listing of a directory's subdirectories, cached or still being filled in.
+     */
+    public DirectoryListing list(Path directory) {
+        DirectoryListing cached;
+        synchronized (cache) {
+            cached = cache.get(directory);
+        }
+        if (cached == null) {
+            return startListing(directory);
+        }
+        if (cached.isComplete()) {
+            executor.execute(() -> revalidate(cached));
+        }
+        return cached;
+    }
+
+    /**
+     * Returns the newest listing of a directory, which differs from the one {@link #list(Path)} returned
+     * once a stale listing was replaced.
+     */
+    public DirectoryListing getCurrent(Path directory) {
+        synchronized (cache) {
+            return cache.get(directory);
+        }
+    }
+
+    /**
+     * Drops the cached listing of a directory, so the next {@link #list(Path)} reads it again.
+     */
+    public void invalidate(Path directory) {
+        synchronized (cache) {
+            cache.remove(directory);
+        }
+    }
+
+    /**
+     * Returns the filesystem roots with their total space, refreshed when older than 30 seconds.
+     */
+    public DirectoryListing listRoots() {
+        DirectoryListing current = roots;
+        if (current != null && (!current.isComplete() || current.getAgeNanos() < ROOTS_MAX_AGE_NANOS)) {
+            return current;
+        }
+        DirectoryListing listing = new DirectoryListing(null);
+        roots = listing;
+        executor.execute(() -> readRoots(listing));
+        return listing;
+    }
+
+    private DirectoryListing startListing(Path directory) {
+        DirectoryListing listing = new DirectoryListing(directory);
+        synchronized (cache) {
+            cache.put(directory, listing);
+        }
+        executor.execute(() -> readDirectory(listing));
+        return listing;
+    }
+
+    private void revalidate(DirectoryListing listing) {
+        Path directory = listing.getDirectory();
+        if (lastModified(directory) != listing.getDirectoryModified() && getCurrent(directory) == listing) {
+            startListing(directory);
+        }
+    }
+
+    /**
+     * Streams the subdirectories of a directory into a listing. Attributes are read through the
+     * directory stream's paths, which on Windows reuse what the directory enumeration already returned.
+     */
+    private static void readDirectory(DirectoryListing listing) {
+        Path directory = listing.getDirectory();
+        // Read before listing, so a change made while listing shows up as stale next time
+        listing.setDirectoryModified(lastModified(directory));
+        String error = null;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // Broken link or no permission, leave it out
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    listing.add(new DirectoryListing.Entry(path, path.getFileName().toString(), 0));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            EasyMapDownload.LOGGER.debug("Could not list " + directory + ": " + e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        listing.finish(error);
+    }
+
+    private static void readRoots(DirectoryListing listing) {
+        List<Path> rootPaths = new ArrayList<>();
+        FileSystems.getDefault().getRootDirectories().forEach(rootPaths::add);
+        for (Path root : rootPaths) {
+            // Unavailable drives report 0 rather than throwing, but can take a while to do so
+            long totalSpace = new File(root.toString()).getTotalSpace();
+            listing.add(new DirectoryListing.Entry(root, root.toString(), totalSpace));
+        }
+        listing.finish(null);
+    }
+
+    private static long lastModified(Path directory) {
+        try {
+            return Files.getLastModifiedTime(directory).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.piggygaming.ezmapdl;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The subdirectories of one directory, or the filesystem roots, filled in by {@link DirectoryLister}
+ * while it reads them. Readers poll {@link #size()} and copy new entries as they arrive.
+ */
+public class DirectoryListing {
+
+    /**
+     * One listed directory. {@code totalSpace} is only known for roots and is 0 otherwise.
+     */
+    public record Entry(Path path, String name, long totalSpace) {
+    }
+
+    private final Path directory;
+    private volatile long directoryModified = -1;
+    private final long createdNanos = System.nanoTime();
+    private final List<Entry> entries = new ArrayList<>();
+    private volatile boolean complete;
+    private volatile String error;
+
+    DirectoryListing(Path directory) {
+        this.directory = directory;
+    }
+
+    synchronized void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    void finish(String error) {
+        this.error = error;
+        this.complete = true;
+    }
+
+    /**
+     * Returns the listed directory, or null for the list of roots.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the directory's modification time when listing started, used to tell if the listing is stale.
+     */
+    long getDirectoryModified() {
+        return directoryModified;
+    }
+
+    void setDirectoryModified(long directoryModified) {
+        this.directoryModified = directoryModified;
+    }
+
+    long getAgeNanos() {
+        return System.nanoTime() - createdNanos;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Appends the entries from {@code start} on to {@code out}.
+     * @return The number of entries copied
+     */
+    public synchronized int copyFrom(int start, List<Entry> out) {
+        for (int i = start; i < entries.size(); i++) {
+            out.add(entries.get(i));
+        }
+        return Math.max(0, entries.size() - start);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns why the directory could not be listed, or null.
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -1,10 +1,18 @@
 package com.piggygaming.ezmapdl;
 
+import com.piggygaming.ezmapdl.core.FileUtils;
+
 import net.fabricmc.api.ClientModInitializer;
 
 public class EasyMapDownloadClient implements ClientModInitializer {
     @Override
     public void onInitializeClient() {
+        EasyMapDownloadConfig.get();
+        MetricsCommand.register();
 
+        // Resolve the Downloads folder early so opening the install screen does not wait on it
+        Thread warmup = new Thread(FileUtils::getDownloadsFolder, "EasyMapDownload-Warmup");
+        warmup.setDaemon(true);
+        warmup.start();
     }
 }
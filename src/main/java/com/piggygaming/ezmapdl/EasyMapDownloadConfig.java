@@ -0,0 +1,227 @@
+package com.piggygaming.ezmapdl;
+
+import com.piggygaming.ezmapdl.core.InstallService;
+import com.piggygaming.ezmapdl.core.WorldDiscovery;
+import com.piggygaming.ezmapdl.core.WorldIndex;
+import com.piggygaming.ezmapdl.core.WorldScanner;
+import com.piggygaming.ezmapdl.core.ZipExtractor;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Mod settings, stored as a properties file in the game's config directory.
+ * Missing or invalid values fall back to their defaults.
+ */
+public class EasyMapDownloadConfig {
+
+    private static final String FILE_NAME = EasyMapDownload.MOD_ID + ".properties";
+    private static EasyMapDownloadConfig instance;
+
+    /** Maximum number of archives validated at the same time while scanning. 0 picks a default from the core count. */
+    private int scanThreads = 0;
+    /** Maximum number of zip entries extracted at the same time. 0 uses one per core. */
+    private int extractThreads = 0;
+    /** How many installs may run at the same time on a solid state disk. A spinning disk always takes one. */
+    private int maxConcurrentInstalls = InstallService.DEFAULT_MAX_CONCURRENT_INSTALLS;
+    /** Whether to delete a world archive once it has been installed. The archive is always read where it is. */
+    private boolean deleteSourceAfterInstall = true;
+    /** Whether the install screen watches the selected folder and lists new worlds once they finish downloading. */
+    private boolean watchDirectory = true;
+    /**
+     * Whether unpacked world folders are installed by hard-linking their files instead of copying them.
+     * Off by default: Minecraft rewrites region files in place, so playing the installed world would
+     * also change the source folder.
+     */
+    private boolean hardLinkWorldFolders = false;
+    /** Whether copies of the same archive (e.g. {@code map.zip} and {@code map (1).zip}) are listed once. */
+    private boolean deduplicateWorlds = true;
+    /** Whether updating a world to a new map version keeps its playerdata, stats and advancements by default. */
+    private boolean preservePlayerDataOnUpdate = true;
+    /** Whether scans also search folders below the selected one and the extra discovery roots. */
+    private boolean recursiveDiscovery = false;
+    /** Extra folders searched when discovery is recursive, separated by the platform's path separator. */
+    private String discoveryRoots = "";
+    /** How many folder levels below each root a recursive scan searches. */
+    private int discoveryMaxDepth = 6;
+    /** How many files a recursive scan looks at before it stops. */
+    private int discoveryMaxFiles = 100000;
+    /** Folder names a recursive scan never enters, comma separated. */
+    private String discoverySkippedFolders = String.join(",", WorldDiscovery.DEFAULT_SKIPPED_FOLDERS.stream().sorted().toList());
+
+    /**
+     * Returns the loaded config, reading it from disk the first time.
+     */
+    public static synchronized EasyMapDownloadConfig get() {
+        if (instance == null) {
+            instance = load(getConfigFile());
+        }
+        return instance;
+    }
+
+    private static Path getConfigFile() {
+        return FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+    }
+
+    /**
+     * Returns this mod's folder inside the game's config directory, used for caches.
+     */
+    public static Path getDataDirectory() {
+        return FabricLoader.getInstance().getConfigDir().resolve(EasyMapDownload.MOD_ID);
+    }
+
+    /**
+     * Returns the file the {@link WorldIndex} of scanned archives is kept in.
+     */
+    public static Path getWorldIndexFile() {
+        return getDataDirectory().resolve("world-index.bin");
+    }
+
+    private static EasyMapDownloadConfig load(Path file) {
+        EasyMapDownloadConfig config = new EasyMapDownloadConfig();
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                EasyMapDownload.LOGGER.warn("Could not read config file " + file + ", using defaults", e);
+            }
+        }
+        config.scanThreads = getInt(properties, "scanThreads", config.scanThreads);
+        config.extractThreads = getInt(properties, "extractThreads", config.extractThreads);
+        config.maxConcurrentInstalls = getInt(properties, "maxConcurrentInstalls", config.maxConcurrentInstalls);
+        config.deleteSourceAfterInstall = getBoolean(properties, "deleteSourceAfterInstall", config.deleteSourceAfterInstall);
+        config.watchDirectory = getBoolean(properties, "watchDirectory", config.watchDirectory);
+        config.hardLinkWorldFolders = getBoolean(properties, "hardLinkWorldFolders", config.hardLinkWorldFolders);
+        config.deduplicateWorlds = getBoolean(properties, "deduplicateWorlds", config.deduplicateWorlds);
+        config.preservePlayerDataOnUpdate = getBoolean(properties, "preservePlayerDataOnUpdate", config.preservePlayerDataOnUpdate);
+        config.recursiveDiscovery = getBoolean(properties, "recursiveDiscovery", config.recursiveDiscovery);
+        config.discoveryRoots = properties.getProperty("discoveryRoots", config.discoveryRoots).trim();
+        config.discoveryMaxDepth = getInt(properties, "discoveryMaxDepth", config.discoveryMaxDepth);
+        config.discoveryMaxFiles = getInt(properties, "discoveryMaxFiles", config.discoveryMaxFiles);
+        config.discoverySkippedFolders = properties.getProperty("discoverySkippedFolders", config.discoverySkippedFolders).trim();
+        config.save(file);
+        return config;
+    }
+
+    private void save(Path file) {
+        Properties properties = new Properties();
+        properties.setProperty("scanThreads", Integer.toString(scanThreads));
+        properties.setProperty("extractThreads", Integer.toString(extractThreads));
+        properties.setProperty("maxConcurrentInstalls", Integer.toString(maxConcurrentInstalls));
+        properties.setProperty("deleteSourceAfterInstall", Boolean.toString(deleteSourceAfterInstall));
+        properties.setProperty("watchDirectory", Boolean.toString(watchDirectory));
+        properties.setProperty("hardLinkWorldFolders", Boolean.toString(hardLinkWorldFolders));
+        properties.setProperty("deduplicateWorlds", Boolean.toString(deduplicateWorlds));
+        properties.setProperty("preservePlayerDataOnUpdate", Boolean.toString(preservePlayerDataOnUpdate));
+        properties.setProperty("recursiveDiscovery", Boolean.toString(recursiveDiscovery));
+        properties.setProperty("discoveryRoots", discoveryRoots);
+        properties.setProperty("discoveryMaxDepth", Integer.toString(discoveryMaxDepth));
+        properties.setProperty("discoveryMaxFiles", Integer.toString(discoveryMaxFiles));
+        properties.setProperty("discoverySkippedFolders", discoverySkippedFolders);
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "EasyMapDownload settings");
+        } catch (IOException e) {
+            EasyMapDownload.LOGGER.warn("Could not write config file " + file, e);
+        }
+    }
+
+    private static int getInt(Properties properties, String key, int fallback) {
+        try {
+            return Integer.parseInt(properties.getProperty(key, Integer.toString(fallback)).trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static boolean getBoolean(Properties properties, String key, boolean fallback) {
+        return Boolean.parseBoolean(properties.getProperty(key, Boolean.toString(fallback)).trim());
+    }
+
+    /**
+     * Returns the number of scanner worker threads to use.
+     */
+    public int getScanThreads() {
+        return scanThreads > 0 ? scanThreads : WorldScanner.defaultParallelism();
+    }
+
+    /**
+     * Returns the number of extraction worker threads to use.
+     */
+    public int getExtractThreads() {
+        return extractThreads > 0 ? extractThreads : ZipExtractor.defaultParallelism();
+    }
+
+    /**
+     * Returns how many installs may run at the same time on a solid state disk.
+     */
+    public int getMaxConcurrentInstalls() {
+        return Math.max(1, maxConcurrentInstalls);
+    }
+
+    public boolean isDeleteSourceAfterInstall() {
+        return deleteSourceAfterInstall;
+    }
+
+    public boolean isHardLinkWorldFolders() {
+        return hardLinkWorldFolders;
+    }
+
+    public boolean isDeduplicateWorlds() {
+        return deduplicateWorlds;
+    }
+
+    public boolean isPreservePlayerDataOnUpdate() {
+        return preservePlayerDataOnUpdate;
+    }
+
+    public boolean isWatchDirectory() {
+        return watchDirectory;
+    }
+
+    /**
+     * Returns a discovery for one scan, or null if scans should only look at the selected folder.
+     */
+    public WorldDiscovery createDiscovery() {
+        if (!recursiveDiscovery) {
+            return null;
+        }
+        List<Path> roots = getDiscoveryRoots();
+        Set<String> skipped = Arrays.stream(discoverySkippedFolders.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .collect(Collectors.toSet());
+        // The game folder holds the installed worlds, which are not candidates to install
+        List<Path> skippedPaths = List.of(FabricLoader.getInstance().getGameDir());
+        return new WorldDiscovery(roots, skippedPaths, discoveryMaxDepth, discoveryMaxFiles, skipped, getScanThreads());
+    }
+
+    /**
+     * Returns the extra folders searched next to the selected one, or an empty list if discovery is
+     * not recursive.
+     */
+    public List<Path> getDiscoveryRoots() {
+        List<Path> roots = new ArrayList<>();
+        if (!recursiveDiscovery) {
+            return roots;
+        }
+        for (String root : discoveryRoots.split(File.pathSeparator)) {
+            if (!root.isBlank()) {
+                roots.add(Path.of(root.trim()));
+            }
+        }
+        return roots;
+    }
+}
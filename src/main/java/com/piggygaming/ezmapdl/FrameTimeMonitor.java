@@ -0,0 +1,64 @@
+package com.piggygaming.ezmapdl;
+
+/**
+ * Measures how long a screen takes to open and the gaps between its rendered frames,
+ * so stalls on the render thread show up in the log.
+ */
+public class FrameTimeMonitor {
+
+    private final String name;
+    private long lastFrameNanos;
+    private long worstFrameNanos;
+    private long totalFrameNanos;
+    private int frames;
+    private long initNanos;
+
+    public FrameTimeMonitor(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records the time spent in one call to a screen's init method.
+     */
+    public void recordInit(long startNanos) {
+        initNanos = Math.max(initNanos, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Call once per rendered frame.
+     */
+    public void onFrame() {
+        long now = System.nanoTime();
+        if (lastFrameNanos != 0) {
+            long frameNanos = now - lastFrameNanos;
+            worstFrameNanos = Math.max(worstFrameNanos, frameNanos);
+            totalFrameNanos += frameNanos;
+            frames++;
+        }
+        lastFrameNanos = now;
+    }
+
+    /**
+     * Call when the screen stops being rendered for a while, e.g. behind a dialog, so the gap is not
+     * counted as a frame.
+     */
+    public void pause() {
+        lastFrameNanos = 0;
+    }
+
+    /**
+     * Logs the collected timings and starts a new measurement.
+     * @param context What the screen showed, e.g. how many rows, so timings can be compared
+     */
+    public void report(String context) {
+        if (frames > 0) {
+            EasyMapDownload.LOGGER.info(String.format("%s (%s): slowest init %.2f ms, %d frames, average %.2f ms, worst %.2f ms",
+                name, context, initNanos / 1e6, frames, totalFrameNanos / 1e6 / frames, worstFrameNanos / 1e6));
+        }
+        lastFrameNanos = 0;
+        worstFrameNanos = 0;
+        totalFrameNanos = 0;
+        frames = 0;
+        initNanos = 0;
+    }
+}
@@ -1,24 +1,34 @@
 package com.piggygaming.ezmapdl;
 
+import com.piggygaming.ezmapdl.core.ArchiveReaders;
+import com.piggygaming.ezmapdl.core.DirectoryWatcher;
+import com.piggygaming.ezmapdl.core.FileUtils;
+import com.piggygaming.ezmapdl.core.InstallCancelledException;
+import com.piggygaming.ezmapdl.core.InstallMode;
+import com.piggygaming.ezmapdl.core.InstallService;
+import com.piggygaming.ezmapdl.core.InstallTask;
+import com.piggygaming.ezmapdl.core.InstalledWorlds;
+import com.piggygaming.ezmapdl.core.WorldMetadata;
+import com.piggygaming.ezmapdl.core.WorldScanner;
+
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
-import net.minecraft.client.gui.screen.TitleScreen;
-import net.minecraft.client.gui.screen.world.SelectWorldScreen;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.screen.ScreenTexts;
 import net.minecraft.text.Text;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
-import static com.piggygaming.ezmapdl.FileUtils.*;
-
 @Environment(EnvType.CLIENT)
 public class InstallMapsScreen extends Screen {
 
@@ -29,79 +39,236 @@ public class InstallMapsScreen extends Screen {
     private File selectedFile;
     /** The currently selected directory to search for map files. Defaults to Downloads folder. */
     private String selectedDirectory;
-    private final List<ButtonWidget> worldButtons = new ArrayList<>();
-    private int scrollOffset = 0;
-    private static final int MAX_VISIBLE_WORLDS = 8;
+    private WorldListWidget worldList;
+    private ButtonWidget updateButton;
+    private ButtonWidget installsButton;
+    /** What the last batch install did, shown in place of the world count. */
+    private String installStatus;
     private WorldScanner worldScanner;
-    private int lastWorldCount = 0;
+    /** Follows the selected directory while the screen is shown, so finished downloads appear without a rescan. */
+    private DirectoryWatcher directoryWatcher;
+    /** The scanner version the list was last fetched at, and whether the scan had finished then. */
+    private int lastScannerVersion = 0;
+    private boolean lastScanFinished = false;
+    /** The number of installs the Installs button shows. */
+    private int lastUnfinishedInstalls = 0;
+    /** The most recent scan, kept across screen instances so reopening the screen reuses its results. */
+    private static WorldScanner lastScanner;
+    private final FrameTimeMonitor frameTimeMonitor = new FrameTimeMonitor("Install maps screen");
+    private WorldDetailsWidget detailsWidget;
+    /** The world the details widget was last filled for, and the pending read of its metadata. */
+    private File detailsFile;
+    private CompletableFuture<WorldMetadata> detailsFuture;
+    /** Listed archives that were installed before, looked up in the background whenever the list changes. */
+    private Map<File, List<InstalledWorlds.Installation>> installed = Map.of();
+    private CompletableFuture<Map<File, List<InstalledWorlds.Installation>>> installedFuture;
+    private boolean installedDirty = true;
 
     public InstallMapsScreen(Screen parent) throws IOException {
         super(Text.literal("Select World to Install"));
         this.parent = parent;
         this.client = MinecraftClient.getInstance();
         this.savesDirectory = new File(this.client.runDirectory.getPath() + File.separator + "saves");
-        this.selectedDirectory = getDownloadsFolder();
+        this.selectedDirectory = FileUtils.getDownloadsFolder();
         this.worldFiles = new ArrayList<>();
+        attachToScan();
     }
 
     private void errorScreen(String errorMSG) {
         EasyMapDownload.LOGGER.warn(errorMSG);
+        // The error screen leads back to the parent, not here
+        shutDown();
         this.client.setScreen(new ErrorScreen(errorMSG, this.parent));
     }
     private void errorScreen(Exception exception) {
         exception.printStackTrace();
+        shutDown();
         this.client.setScreen(new ErrorScreen(exception.getStackTrace().toString(), this.parent));
     }
 
     @Override
     protected void init() {
-
-        try {worldFiles = getAllWorldFiles(selectedDirectory);
-            if (selectedFile == null && !worldFiles.isEmpty()) {
-                selectedFile = worldFiles.get(0);
-            }
-        } catch (Exception e) {
-            errorScreen(e);
-        }
+        // Only widgets are built here; world files come from the background scan, so resizing never touches the disk
+        long initStart = System.nanoTime();
 
         // Browse button
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Browse"), (button) -> {
             browseDirectory();
         }).dimensions(this.width / 2 - 150, 20, 100, 20).build());
         
-        // Install button
+        // Update button, applies a new version of a map to a world that is already installed
+        updateButton = this.addDrawableChild(ButtonWidget.builder(Text.literal("Update World..."), (button) -> {
+            File sourceFile = selectedFile;
+            if (sourceFile == null) {
+                return;
+            }
+            this.client.setScreen(new UpdateWorldScreen(this, sourceFile, savesDirectory,
+                (worldFolder, preservePlayerData) -> startUpdate(sourceFile, worldFolder, preservePlayerData)));
+        }).dimensions(this.width / 2 + 50, 20, 100, 20).build());
+        updateButton.active = canUpdateFrom(selectedFile);
+        
+        // Installs button, shows the install queue while installs run in the background
+        installsButton = this.addDrawableChild(ButtonWidget.builder(installsText(lastUnfinishedInstalls), (button) -> {
+            this.client.setScreen(new InstallQueueScreen(this));
+        }).dimensions(this.width / 2 - 45, 20, 90, 20).build());
+        
+        // Install button, installs the checked rows or else the selected one
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Install Selected"), (button) -> {
+            List<File> checked = worldList.getCheckedFiles();
+            if (checked.size() > 1) {
+                installChecked(checked);
+                return;
+            }
             // Check if file exists when confirming
             if (this.selectedFile == null) {
                 errorScreen("No world file selected. Please browse to a folder with world zip files.");
                 return;
             }
             
-            File newFile = new File(savesDirectory.getPath() + File.separator + selectedFile.getName());
-            this.client.setScreen(new LoadingScreen(this.parent));
-            if (selectedFile.renameTo(newFile)) {
-                try {
-                    if (fileNotInRootDir(newFile, "level.dat")) {
-                        unzipThread thread = new unzipThread(newFile.getPath(), savesDirectory, this.client);
-                        thread.start();
-                    } else {
-                        File dir = new File(savesDirectory.getPath() + File.separator + newFile.getName().replaceFirst("[.][^.]+$", "")); dir.mkdirs();
-                        unzipThread thread = new unzipThread(newFile.getPath(), dir, this.client);
-                        thread.start();
-                    }
-                } catch (Exception e) {
-                    errorScreen(e);
-                }
+            File sourceFile = checked.isEmpty() ? selectedFile : checked.get(0);
+            List<InstalledWorlds.Installation> installations = installed.getOrDefault(sourceFile, List.of());
+            if (!installations.isEmpty()) {
+                InstalledWorlds.Installation installation = installations.get(0);
+                this.client.setScreen(new AlreadyInstalledScreen(this, sourceFile, installation,
+                    mode -> startInstall(sourceFile, mode, installation)));
+                return;
             }
+            startInstall(sourceFile, InstallMode.NEW, null);
 
         }).dimensions(this.width / 2 - 100, this.height - 30, 95, 20).build());
         
         // Cancel button
         this.addDrawableChild(ButtonWidget.builder(ScreenTexts.CANCEL, (button) -> {
-            this.client.setScreen(this.parent);
+            this.close();
         }).dimensions(this.width / 2 + 5, this.height - 30, 95, 20).build());
         
-        refreshWorldList();
+        if (detailsWidget == null) {
+            detailsWidget = new WorldDetailsWidget(this.width / 2, this.height - 72, this.textRenderer);
+        }
+        detailsWidget.setPosition(this.width / 2, this.height - 72);
+        
+        // The list spans from below the header to above the details, rows keep their state across resizes
+        worldList = new WorldListWidget(this.client, this.width, this.height - 78 - 48, 48, file -> this.selectedFile = file);
+        worldList.setWorlds(worldFiles, worldScanner != null ? worldScanner.getDuplicateCounts() : Map.of());
+        worldList.setInstalled(installed.keySet());
+        worldList.select(selectedFile);
+        this.addDrawableChild(worldList);
+        
+        startWatching();
+        frameTimeMonitor.recordInit(initStart);
+    }
+    
+    /**
+     * Shows the results of the last scan of the selected directory right away.
+     * A scan that is still running is reused, otherwise a new one is started to pick up changes.
+     */
+    private void attachToScan() {
+        WorldScanner previous = lastScanner;
+        if (previous == null || !previous.getDirectoryPath().equals(selectedDirectory)) {
+            startScanning();
+            return;
+        }
+        
+        if (previous.isScanning()) {
+            worldScanner = previous;
+        } else {
+            startScanning();
+        }
+        
+        // Keep showing the cached results until the scan catches up
+        worldFiles = previous.getFoundWorldFiles();
+        if (!worldFiles.isEmpty()) {
+            selectedFile = worldFiles.get(0);
+        }
+    }
+    
+    /**
+     * Queues a new install of each checked archive and shows the queue. Archives that were installed
+     * before, or are being installed, are skipped; they can still be replaced or verified one at a time.
+     */
+    private void installChecked(List<File> checked) {
+        int skipped = 0;
+        for (File sourceFile : checked) {
+            if (installed.containsKey(sourceFile) || !queueInstall(newInstallTask(sourceFile, InstallMode.NEW, null))) {
+                skipped++;
+            }
+        }
+        worldList.clearChecked();
+        installStatus = skipped == 0 ? null
+            : "Skipped " + skipped + " already installed or queued world" + (skipped == 1 ? "" : "s");
+        if (skipped < checked.size()) {
+            this.client.setScreen(new InstallQueueScreen(this));
+        }
+    }
+
+    /**
+     * Starts installing an archive in the background and shows its progress.
+     * @param installation The earlier installation to replace or verify, null for a new install
+     */
+    private void startInstall(File sourceFile, InstallMode mode, InstalledWorlds.Installation installation) {
+        installStatus = null;
+        queueInstall(newInstallTask(sourceFile, mode, installation));
+        this.client.setScreen(new InstallQueueScreen(this));
+    }
+
+    private InstallTask newInstallTask(File sourceFile, InstallMode mode, InstalledWorlds.Installation installation) {
+        // The archive is read where it is, so installing from another drive needs no move or copy
+        EasyMapDownloadConfig config = EasyMapDownloadConfig.get();
+        return new InstallTask(sourceFile, savesDirectory, config.isDeleteSourceAfterInstall(), config.getExtractThreads(),
+            config.isHardLinkWorldFolders(), mode, installation);
+    }
+
+    /**
+     * Starts updating a world in saves/ to the version in an archive and shows its progress.
+     */
+    private void startUpdate(File sourceFile, String worldFolder, boolean preservePlayerData) {
+        EasyMapDownloadConfig config = EasyMapDownloadConfig.get();
+        installStatus = null;
+        queueInstall(new InstallTask(sourceFile, savesDirectory, config.isDeleteSourceAfterInstall(), config.getExtractThreads(),
+            worldFolder, preservePlayerData));
+        this.client.setScreen(new InstallQueueScreen(this));
+    }
+
+    /**
+     * Hands a task to the install queue, which starts it once the saves disk has room for it.
+     * @return false if the archive is already queued or installing, which the queue then shows
+     */
+    private boolean queueInstall(InstallTask task) {
+        File sourceFile = task.getArchive();
+        InstallService service = InstallService.get();
+        if (service.isInstalling(sourceFile)) {
+            return false;
+        }
+        service.setMaxConcurrentInstalls(EasyMapDownloadConfig.get().getMaxConcurrentInstalls());
+        service.submit(task).whenComplete((ignored, error) ->
+            this.client.execute(() -> onInstallFinished(sourceFile, error)));
+        return true;
+    }
+
+    private static Text installsText(int unfinished) {
+        return Text.literal(unfinished > 0 ? "Installs (" + unfinished + ")" : "Installs");
+    }
+    
+    /**
+     * Updates compare against the CRCs in a zip's central directory, which only zips have.
+     * Decided by name alone, as this runs every tick.
+     */
+    private static boolean canUpdateFrom(File file) {
+        return file != null && ArchiveReaders.forFile(file) == ArchiveReaders.ZIP;
+    }
+
+    /**
+     * Called on the client thread when an install task ends. The outcome is shown in the install queue,
+     * so the player stays wherever they are.
+     */
+    private void onInstallFinished(File sourceFile, Throwable error) {
+        // The installed tags change, and a cancelled replace or verify may have changed the installed world
+        installedDirty = true;
+        if (error instanceof InstallCancelledException) {
+            EasyMapDownload.LOGGER.info("Install of " + sourceFile.getName() + " cancelled");
+        } else if (error != null) {
+            EasyMapDownload.LOGGER.error("Install of " + sourceFile.getName() + " failed", error);
+        }
     }
     
     private void startScanning() {
@@ -109,96 +276,190 @@ public class InstallMapsScreen extends Screen {
             worldScanner.stopScanning();
         }
         
-        worldScanner = new WorldScanner(selectedDirectory);
+        EasyMapDownloadConfig config = EasyMapDownloadConfig.get();
+        worldScanner = new WorldScanner(selectedDirectory, config.getScanThreads(), EasyMapDownloadConfig.getWorldIndexFile(),
+            config.createDiscovery(), config.isDeduplicateWorlds());
         worldScanner.start();
+        lastScanner = worldScanner;
         worldFiles = new ArrayList<>();
-        lastWorldCount = 0;
+        lastScannerVersion = 0;
+        lastScanFinished = false;
     }
     
-    @Override
-    public void tick() {
-        super.tick();
+    /**
+     * Watches the selected directory and any extra discovery roots, unless they are already watched
+     * or watching is turned off. Changes are applied to the current scan's results on the client thread.
+     */
+    private void startWatching() {
+        EasyMapDownloadConfig config = EasyMapDownloadConfig.get();
+        if (!config.isWatchDirectory()) {
+            return;
+        }
+        List<Path> directories = new ArrayList<>();
+        directories.add(Path.of(selectedDirectory));
+        for (Path root : config.getDiscoveryRoots()) {
+            if (!directories.contains(root)) {
+                directories.add(root);
+            }
+        }
+        if (directoryWatcher != null && directoryWatcher.isAlive() && directoryWatcher.getDirectories().equals(directories)) {
+            return;
+        }
+        stopWatching();
         
-        // Update world list from scanner
-        if (worldScanner != null) {
-            List<File> scannedFiles = worldScanner.getFoundWorldFiles();
-            if (scannedFiles.size() > lastWorldCount) {
-                worldFiles = scannedFiles;
-                lastWorldCount = scannedFiles.size();
-                
-                // Auto-select first world if none selected
-                if (selectedFile == null && !worldFiles.isEmpty()) {
-                    selectedFile = worldFiles.get(0);
-                }
-                
-                // Refresh the display
-                refreshWorldList();
+        directoryWatcher = new DirectoryWatcher(directories, EasyMapDownloadConfig.getWorldIndexFile(), new DirectoryWatcher.Listener() {
+            @Override
+            public void worldAdded(File archive) {
+                client.execute(() -> {
+                    if (worldScanner != null) {
+                        worldScanner.addWorld(archive);
+                    }
+                });
             }
+            
+            @Override
+            public void worldRemoved(File archive) {
+                client.execute(() -> {
+                    if (worldScanner != null) {
+                        worldScanner.removeWorld(archive);
+                    }
+                });
+            }
+        });
+        directoryWatcher.start();
+    }
+    
+    private void stopWatching() {
+        if (directoryWatcher != null) {
+            directoryWatcher.stopWatching();
+            directoryWatcher = null;
         }
     }
     
     @Override
-    public void removed() {
-        super.removed();
-        // Stop scanning when leaving the screen
+    public void tick() {
+        super.tick();
+        
+        // Update world list from scanner, fetching nothing unless it changed since the last tick
         if (worldScanner != null) {
-            worldScanner.stopScanning();
+            int scannerVersion = worldScanner.getVersion();
+            boolean scanFinished = !worldScanner.isScanning();
+            if (scannerVersion != lastScannerVersion || scanFinished != lastScanFinished) {
+                lastScannerVersion = scannerVersion;
+                lastScanFinished = scanFinished;
+                applyScannedFiles(worldScanner.getFoundWorldFiles(), scanFinished);
+            }
         }
+        
+        updateDetails();
+        updateInstalled();
+        if (updateButton != null) {
+            updateButton.active = canUpdateFrom(selectedFile);
+        }
+        int unfinishedInstalls = InstallService.get().countUnfinishedJobs();
+        if (installsButton != null && unfinishedInstalls != lastUnfinishedInstalls) {
+            installsButton.setMessage(installsText(unfinishedInstalls));
+        }
+        lastUnfinishedInstalls = unfinishedInstalls;
     }
     
-    private void refreshWorldList() {
-        // Clear existing world buttons
-        worldButtons.forEach(this::remove);
-        worldButtons.clear();
-        
-        if (worldFiles.isEmpty()) {
+    /**
+     * Shows the scanner's current list. A rescan that has not caught up with the cached results yet
+     * keeps them shown until it finishes.
+     */
+    private void applyScannedFiles(List<File> scannedFiles, boolean scanFinished) {
+        if (!scanFinished && scannedFiles.size() < worldFiles.size()) {
             return;
         }
+        worldFiles = scannedFiles;
+        installedDirty = true;
         
-        int yPos = 50;
-        int buttonIndex = 0;
-        
-        for (int i = scrollOffset; i < worldFiles.size() && buttonIndex < MAX_VISIBLE_WORLDS; i++) {
-            File file = worldFiles.get(i);
-            final File currentFile = file;
-            boolean isSelected = file.equals(selectedFile);
-            
-            String displayName = (isSelected ? "► " : "") + file.getName();
-            
-            ButtonWidget button = ButtonWidget.builder(
-                Text.literal(displayName),
-                (btn) -> {
-                    this.selectedFile = currentFile;
-                    refreshWorldList();
-                }
-            ).dimensions(this.width / 2 - 150, yPos, 300, 20).build();
-            
-            this.addDrawableChild(button);
-            worldButtons.add(button);
-            
-            yPos += 22;
-            buttonIndex++;
+        // Auto-select first world if none selected, or if the selection disappeared
+        if ((selectedFile == null || !worldFiles.contains(selectedFile)) && !worldFiles.isEmpty()) {
+            selectedFile = worldFiles.get(0);
         }
         
-        // Scroll buttons if needed
-        int scrollButtonY = yPos + 5;
-        if (worldFiles.size() > MAX_VISIBLE_WORLDS) {
-            if (scrollOffset > 0) {
-                this.addDrawableChild(ButtonWidget.builder(Text.literal("▲ Previous"), (button) -> {
-                    scrollOffset = Math.max(0, scrollOffset - MAX_VISIBLE_WORLDS);
-                    refreshWorldList();
-                }).dimensions(this.width / 2 - 150, scrollButtonY, 145, 20).build());
+        // Only the rows that changed are added or removed
+        if (worldList != null) {
+            worldList.setWorlds(worldFiles, worldScanner.getDuplicateCounts());
+            worldList.select(selectedFile);
+        }
+    }
+    
+    /**
+     * Applies the last lookup of installed archives and starts a new one if the list changed since.
+     * Only one lookup runs at a time, so a running scan does not queue one per tick.
+     */
+    private void updateInstalled() {
+        if (installedFuture != null) {
+            if (!installedFuture.isDone()) {
+                return;
             }
-            
-            if (scrollOffset + MAX_VISIBLE_WORLDS < worldFiles.size()) {
-                this.addDrawableChild(ButtonWidget.builder(Text.literal("▼ Next"), (button) -> {
-                    scrollOffset += MAX_VISIBLE_WORLDS;
-                    refreshWorldList();
-                }).dimensions(this.width / 2 + 5, scrollButtonY, 145, 20).build());
+            installed = installedFuture.exceptionally(error -> Map.of()).join();
+            installedFuture = null;
+            if (worldList != null) {
+                worldList.setInstalled(installed.keySet());
             }
         }
+        if (installedDirty) {
+            installedDirty = false;
+            installedFuture = InstalledWorlds.findAll(savesDirectory, worldFiles, EasyMapDownloadConfig.getWorldIndexFile());
+        }
+    }
+    
+    /**
+     * Keeps the details widget in sync with the selection, reading level.dat in the background.
+     */
+    private void updateDetails() {
+        if (detailsWidget == null) {
+            return;
+        }
+        if (selectedFile == null) {
+            detailsFile = null;
+            detailsFuture = null;
+            detailsWidget.clear();
+            return;
+        }
+        if (!selectedFile.equals(detailsFile)) {
+            detailsFile = selectedFile;
+            detailsFuture = WorldMetadataCache.get().request(selectedFile);
+            detailsWidget.setLoading(selectedFile);
+        }
+        if (detailsFuture != null && detailsFuture.isDone()) {
+            WorldMetadata metadata = detailsFuture.exceptionally(error -> null).join();
+            if (metadata != null) {
+                detailsWidget.setWorld(detailsFile, metadata);
+            } else {
+                detailsWidget.setUnreadable(detailsFile);
+            }
+            detailsFuture = null;
+        }
+    }
+    
+    @Override
+    public void removed() {
+        super.removed();
+        // Also called when one of this screen's dialogs opens, so the scan and watcher keep running
+        frameTimeMonitor.pause();
+    }
+
+    @Override
+    public void close() {
+        shutDown();
+        this.client.setScreen(this.parent);
     }
 
+    /**
+     * Stops the scan and the directory watcher once the screen is left for good.
+     */
+    private void shutDown() {
+        if (worldScanner != null) {
+            worldScanner.stopScanning();
+        }
+        stopWatching();
+        frameTimeMonitor.report(worldFiles.size() + " worlds listed");
+    }
+    
     /**
      * Opens a Minecraft-native directory browser to allow the user to select a directory to search for map files.
      * When a directory is selected, the screen refreshes to show all valid Minecraft world zip files in that directory.
@@ -209,7 +470,6 @@ public class InstallMapsScreen extends Screen {
             
             // Start new scan for the new directory
             this.selectedFile = null;
-            scrollOffset = 0;
             startScanning();
             
             // Rebuild the screen
@@ -220,9 +480,16 @@ public class InstallMapsScreen extends Screen {
 
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        frameTimeMonitor.onFrame();
+        // Icons are only asked for by the rows on screen, so off-screen archives are never read
+        WorldIconCache.get().onFrame();
         super.render(context, mouseX, mouseY, delta);
         context.drawCenteredTextWithShadow(this.textRenderer, this.title, this.width / 2, 5, 16777215);
         
+        if (detailsWidget != null) {
+            detailsWidget.render(context);
+        }
+        
         // Display the current directory
         String dirDisplay = "Directory: " + selectedDirectory;
         context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(dirDisplay), this.width / 2, this.height - 45, 11184810);
@@ -233,25 +500,12 @@ public class InstallMapsScreen extends Screen {
             context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(scanText), this.width / 2, 35, 16777045);
         } else if (worldFiles.isEmpty()) {
             context.drawCenteredTextWithShadow(this.textRenderer, Text.literal("No valid world zip files found - click Browse"), this.width / 2, this.height / 2 - 20, 16733525);
+        } else if (installStatus != null) {
+            context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(installStatus), this.width / 2, 35, 16777045);
         } else {
             String countText = "Found " + worldFiles.size() + " world" + (worldFiles.size() == 1 ? "" : "s");
             context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(countText), this.width / 2, 35, 11184810);
         }
     }
-    
-    @Override
-    public boolean mouseScrolled(double mouseX, double mouseY, double horizontalAmount, double verticalAmount) {
-        // Scroll through worlds with mouse wheel
-        if (worldFiles.size() > MAX_VISIBLE_WORLDS) {
-            if (verticalAmount > 0) {
-                scrollOffset = Math.max(0, scrollOffset - 1);
-                refreshWorldList();
-            } else if (verticalAmount < 0) {
-                scrollOffset = Math.min(worldFiles.size() - MAX_VISIBLE_WORLDS, scrollOffset + 1);
-                refreshWorldList();
-            }
-        }
-        return super.mouseScrolled(mouseX, mouseY, horizontalAmount, verticalAmount);
-    }
 
 }
@@ -0,0 +1,253 @@
+package com.piggygaming.ezmapdl;
+
+import com.piggygaming.ezmapdl.core.InstallJob;
+import com.piggygaming.ezmapdl.core.InstallProgress;
+import com.piggygaming.ezmapdl.core.InstallService;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.screen.TitleScreen;
+import net.minecraft.client.gui.screen.world.SelectWorldScreen;
+import net.minecraft.client.gui.widget.AlwaysSelectedEntryListWidget;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.text.Text;
+
+import java.util.List;
+
+/**
+ * Shows the installs queued in the {@link InstallService}, one row each with its progress.
+ * Installs keep running when the screen is left, so the world list can be browsed in the meantime.
+ */
+@Environment(EnvType.CLIENT)
+public class InstallQueueScreen extends Screen {
+
+    private static final int ROW_HEIGHT = 36;
+    private static final int BAR_HEIGHT = 6;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final Screen parent;
+    private final MinecraftClient client;
+    /** The jobs the rows were built for, rebuilt only when the service's list changes. */
+    private List<InstallJob> shownJobs;
+    private InstallJob selectedJob;
+    private JobList jobList;
+    private ButtonWidget cancelButton;
+
+    public InstallQueueScreen(Screen parent) {
+        super(Text.literal("Installs"));
+        this.parent = parent;
+        this.client = MinecraftClient.getInstance();
+        this.shownJobs = InstallService.get().getJobs();
+    }
+
+    @Override
+    protected void init() {
+        jobList = new JobList(this.client, this.width, this.height - 64 - 32, 32);
+        jobList.setJobs(shownJobs);
+        this.addDrawableChild(jobList);
+
+        cancelButton = this.addDrawableChild(ButtonWidget.builder(Text.literal("Cancel Install"), (button) -> {
+            if (selectedJob != null) {
+                selectedJob.cancel();
+            }
+        }).dimensions(this.width / 2 - 100, this.height - 54, 95, 20).build());
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Clear Finished"), (button) -> {
+            InstallService.get().clearFinished();
+        }).dimensions(this.width / 2 + 5, this.height - 54, 95, 20).build());
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Back to List"), (button) -> {
+            this.client.setScreen(this.parent);
+        }).dimensions(this.width / 2 - 100, this.height - 30, 95, 20).build());
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Open Worlds"), (button) -> {
+            this.client.setScreen(new SelectWorldScreen(new TitleScreen()));
+        }).dimensions(this.width / 2 + 5, this.height - 30, 95, 20).build());
+
+        updateCancelButton();
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        List<InstallJob> jobs = InstallService.get().getJobs();
+        if (!jobs.equals(shownJobs)) {
+            shownJobs = jobs;
+            if (selectedJob != null && !jobs.contains(selectedJob)) {
+                selectedJob = null;
+            }
+            jobList.setJobs(jobs);
+        }
+        updateCancelButton();
+    }
+
+    private void updateCancelButton() {
+        cancelButton.active = selectedJob != null && !selectedJob.getState().isFinished();
+    }
+
+    @Override
+    public void close() {
+        this.client.setScreen(this.parent);
+    }
+
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        super.render(context, mouseX, mouseY, delta);
+        context.drawCenteredTextWithShadow(this.textRenderer, this.title, this.width / 2, 5, 16777215);
+
+        int running = 0;
+        int queued = 0;
+        for (InstallJob job : shownJobs) {
+            if (job.getState() == InstallJob.State.RUNNING) {
+                running++;
+            } else if (job.getState() == InstallJob.State.QUEUED) {
+                queued++;
+            }
+        }
+        String summary = shownJobs.isEmpty() ? "No installs" : running + " running, " + queued + " queued";
+        context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(summary), this.width / 2, 18, 11184810);
+    }
+
+    private static String describeState(InstallJob job) {
+        return switch (job.getState()) {
+            case QUEUED -> "Queued";
+            case RUNNING -> {
+                if (job.getTask().getProgress().isCancelled()) {
+                    yield "Cancelling...";
+                }
+                yield switch (job.getTask().getMode()) {
+                    case NEW -> "Installing";
+                    case REPLACE -> "Replacing";
+                    case VERIFY -> "Verifying";
+                    case UPDATE -> "Updating";
+                };
+            }
+            case SUCCEEDED -> "Done";
+            case FAILED -> "Failed";
+            case CANCELLED -> "Cancelled";
+        };
+    }
+
+    private static int stateColor(InstallJob.State state) {
+        return switch (state) {
+            case QUEUED -> 0xA0A0A0;
+            case RUNNING -> 0xFFFF55;
+            case SUCCEEDED -> 0x55FF55;
+            case FAILED -> 0xFF5555;
+            case CANCELLED -> 0xA0A0A0;
+        };
+    }
+
+    /**
+     * Size, speed, time left and current entry of a running job, or why a failed one failed.
+     */
+    private static String describeProgress(InstallJob job) {
+        InstallProgress progress = job.getTask().getProgress();
+        switch (job.getState()) {
+            case RUNNING:
+                long written = progress.getBytesWritten();
+                long total = progress.getTotalBytes();
+                long eta = progress.getEtaSeconds();
+                String text = total > 0
+                    ? String.format("%.1f / %.1f MB", written / BYTES_PER_MB, total / BYTES_PER_MB)
+                    : String.format("%.1f MB", written / BYTES_PER_MB);
+                text += String.format(" - %.1f MB/s", progress.getBytesPerSecond() / BYTES_PER_MB);
+                if (eta >= 0) {
+                    text += String.format(" - %d:%02d left", eta / 60, eta % 60);
+                }
+                return text + " - " + progress.getCurrentEntry();
+            case SUCCEEDED:
+                return "Installed as " + String.join(", ", job.getTask().getInstalledWorlds());
+            case FAILED:
+                return String.valueOf(job.getError().getMessage());
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * The jobs, one row each.
+     */
+    @Environment(EnvType.CLIENT)
+    private class JobList extends AlwaysSelectedEntryListWidget<JobList.Row> {
+
+        JobList(MinecraftClient client, int width, int height, int y) {
+            super(client, width, height, y, ROW_HEIGHT);
+        }
+
+        void setJobs(List<InstallJob> jobs) {
+            clearEntries();
+            for (InstallJob job : jobs) {
+                Row row = new Row(job);
+                addEntry(row);
+                if (job == selectedJob) {
+                    super.setSelected(row);
+                }
+            }
+            // Clamps the scroll position to the new length
+            setScrollAmount(getScrollAmount());
+        }
+
+        @Override
+        public void setSelected(Row row) {
+            super.setSelected(row);
+            selectedJob = row != null ? row.job : null;
+            updateCancelButton();
+        }
+
+        @Override
+        public int getRowWidth() {
+            return 300;
+        }
+
+        @Environment(EnvType.CLIENT)
+        class Row extends AlwaysSelectedEntryListWidget.Entry<Row> {
+
+            private final InstallJob job;
+            private final String name;
+
+            Row(InstallJob job) {
+                this.job = job;
+                this.name = job.getTask().getArchive().getName();
+            }
+
+            @Override
+            public void render(DrawContext context, int index, int y, int x, int entryWidth, int entryHeight, int mouseX, int mouseY, boolean hovered, float tickDelta) {
+                String state = describeState(job);
+                int stateWidth = client.textRenderer.getWidth(state);
+                String label = client.textRenderer.trimToWidth(name, entryWidth - stateWidth - 10);
+                context.drawText(client.textRenderer, label, x + 2, y + 1, 0xFFFFFF, false);
+                context.drawText(client.textRenderer, state, x + entryWidth - stateWidth - 4, y + 1, stateColor(job.getState()), false);
+
+                // Progress bar, full once the job is done
+                int barX = x + 2;
+                int barY = y + 12;
+                int barWidth = entryWidth - 8;
+                float fraction = job.getState() == InstallJob.State.SUCCEEDED ? 1 : job.getTask().getProgress().getFraction();
+                context.fill(barX - 1, barY - 1, barX + barWidth + 1, barY + BAR_HEIGHT + 1, 0xFFA0A0A0);
+                context.fill(barX, barY, barX + barWidth, barY + BAR_HEIGHT, 0xFF000000);
+                if (fraction > 0 && job.getState() != InstallJob.State.QUEUED) {
+                    context.fill(barX, barY, barX + (int) (barWidth * fraction), barY + BAR_HEIGHT, 0xFF55FF55);
+                }
+
+                String detail = client.textRenderer.trimToWidth(describeProgress(job), entryWidth - 6);
+                int detailColor = job.getState() == InstallJob.State.FAILED ? 0xFF5555 : 0x808080;
+                context.drawText(client.textRenderer, detail, x + 2, y + 22, detailColor, false);
+            }
+
+            @Override
+            public boolean mouseClicked(double mouseX, double mouseY, int button) {
+                JobList.this.setSelected(this);
+                return true;
+            }
+
+            @Override
+            public Text getNarration() {
+                return Text.translatable("narrator.select", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.piggygaming.ezmapdl;
+
+import com.piggygaming.ezmapdl.core.Metrics;
+
+import com.mojang.brigadier.context.CommandContext;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.minecraft.text.Text;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * {@code /ezmapdl metrics} writes the scan and install metrics to config/ezmapdl/metrics.json and
+ * logs a summary line; {@code /ezmapdl metrics reset} starts counting from zero.
+ */
+@Environment(EnvType.CLIENT)
+public final class MetricsCommand {
+
+    private MetricsCommand() {
+    }
+
+    public static void register() {
+        ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> dispatcher.register(
+            ClientCommandManager.literal(EasyMapDownload.MOD_ID)
+                .then(ClientCommandManager.literal("metrics")
+                    .executes(MetricsCommand::dump)
+                    .then(ClientCommandManager.literal("reset").executes(MetricsCommand::reset)))));
+    }
+
+    private static int dump(CommandContext<FabricClientCommandSource> context) {
+        Path file = EasyMapDownloadConfig.getDataDirectory().resolve("metrics.json");
+        try {
+            Metrics.writeJson(file);
+        } catch (IOException e) {
+            EasyMapDownload.LOGGER.warn("Could not write metrics to " + file, e);
+            context.getSource().sendError(Text.literal("Could not write metrics: " + e.getMessage()));
+            return 0;
+        }
+        EasyMapDownload.LOGGER.info("Metrics: " + Metrics.summary());
+        context.getSource().sendFeedback(Text.literal("Wrote metrics to " + file));
+        return 1;
+    }
+
+    private static int reset(CommandContext<FabricClientCommandSource> context) {
+        Metrics.reset();
+        context.getSource().sendFeedback(Text.literal("Metrics reset"));
+        return 1;
+    }
+}
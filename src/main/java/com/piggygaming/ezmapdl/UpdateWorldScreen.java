@@ -0,0 +1,172 @@
+package com.piggygaming.ezmapdl;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.AlwaysSelectedEntryListWidget;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.screen.ScreenTexts;
+import net.minecraft.text.Text;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the world in saves/ that a newer version of a map should be applied to, and whether the
+ * player's data in it is kept. The saves folder is listed in the background like the directory browser.
+ */
+@Environment(EnvType.CLIENT)
+public class UpdateWorldScreen extends Screen {
+
+    private final Screen parent;
+    private final MinecraftClient client;
+    private final File archive;
+    private final File savesDirectory;
+    private final Callback callback;
+    private DirectoryListing listing;
+    private int entriesTaken;
+    private final List<String> worlds = new ArrayList<>();
+    private String selectedWorld;
+    private boolean preservePlayerData;
+    private WorldFolderList worldList;
+    private ButtonWidget updateButton;
+
+    @FunctionalInterface
+    public interface Callback {
+        void update(String worldFolder, boolean preservePlayerData);
+    }
+
+    public UpdateWorldScreen(Screen parent, File archive, File savesDirectory, Callback callback) {
+        super(Text.literal("Update Existing World"));
+        this.parent = parent;
+        this.client = MinecraftClient.getInstance();
+        this.archive = archive;
+        this.savesDirectory = savesDirectory;
+        this.callback = callback;
+        this.preservePlayerData = EasyMapDownloadConfig.get().isPreservePlayerDataOnUpdate();
+    }
+
+    @Override
+    protected void init() {
+        if (listing == null) {
+            listing = DirectoryLister.get().list(savesDirectory.toPath());
+        }
+
+        worldList = new WorldFolderList(this.client, this.width, this.height - 64 - 48, 48);
+        worldList.setFolders(worlds, selectedWorld);
+        this.addDrawableChild(worldList);
+
+        this.addDrawableChild(ButtonWidget.builder(playerDataText(), (button) -> {
+            preservePlayerData = !preservePlayerData;
+            button.setMessage(playerDataText());
+        }).dimensions(this.width / 2 - 100, this.height - 56, 200, 20).build());
+
+        updateButton = this.addDrawableChild(ButtonWidget.builder(Text.literal("Update"), (button) -> {
+            if (selectedWorld != null) {
+                callback.update(selectedWorld, preservePlayerData);
+            }
+        }).dimensions(this.width / 2 - 100, this.height - 30, 95, 20).build());
+        updateButton.active = selectedWorld != null;
+
+        this.addDrawableChild(ButtonWidget.builder(ScreenTexts.CANCEL, (button) -> {
+            this.client.setScreen(this.parent);
+        }).dimensions(this.width / 2 + 5, this.height - 30, 95, 20).build());
+    }
+
+    private Text playerDataText() {
+        return Text.literal("Keep player data: " + (preservePlayerData ? "ON" : "OFF"));
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        // Folders stream in from the lister; the list is rebuilt only when some arrived
+        List<DirectoryListing.Entry> added = new ArrayList<>();
+        entriesTaken += listing.copyFrom(entriesTaken, added);
+        if (!added.isEmpty()) {
+            for (DirectoryListing.Entry entry : added) {
+                worlds.add(entry.name());
+            }
+            worlds.sort(String.CASE_INSENSITIVE_ORDER);
+            worldList.setFolders(worlds, selectedWorld);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.client.setScreen(this.parent);
+    }
+
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        super.render(context, mouseX, mouseY, delta);
+        context.drawCenteredTextWithShadow(this.textRenderer, this.title, this.width / 2, 5, 16777215);
+        String subtitle = this.textRenderer.trimToWidth("Only files that changed in " + archive.getName() + " are extracted", this.width - 40);
+        context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(subtitle), this.width / 2, 20, 11184810);
+        if (worlds.isEmpty()) {
+            String status = listing.getError() != null ? "Could not list saves: " + listing.getError()
+                : listing.isComplete() ? "No worlds in saves" : "Listing worlds...";
+            context.drawCenteredTextWithShadow(this.textRenderer, Text.literal(status), this.width / 2, this.height / 2 - 20, 11184810);
+        }
+    }
+
+    /**
+     * The folders in saves/, one row each.
+     */
+    @Environment(EnvType.CLIENT)
+    private class WorldFolderList extends AlwaysSelectedEntryListWidget<WorldFolderList.Row> {
+
+        WorldFolderList(MinecraftClient client, int width, int height, int y) {
+            super(client, width, height, y, 14);
+        }
+
+        void setFolders(List<String> folders, String selected) {
+            clearEntries();
+            for (String folder : folders) {
+                Row row = new Row(folder);
+                addEntry(row);
+                if (folder.equals(selected)) {
+                    super.setSelected(row);
+                }
+            }
+            // Clamps the scroll position to the new length
+            setScrollAmount(getScrollAmount());
+        }
+
+        @Override
+        public void setSelected(Row row) {
+            super.setSelected(row);
+            selectedWorld = row != null ? row.folder : null;
+            updateButton.active = selectedWorld != null;
+        }
+
+        @Environment(EnvType.CLIENT)
+        class Row extends AlwaysSelectedEntryListWidget.Entry<Row> {
+
+            private final String folder;
+
+            Row(String folder) {
+                this.folder = folder;
+            }
+
+            @Override
+            public void render(DrawContext context, int index, int y, int x, int entryWidth, int entryHeight, int mouseX, int mouseY, boolean hovered, float tickDelta) {
+                context.drawText(client.textRenderer, folder, x + 2, y + 1, 0xFFFFFF, false);
+            }
+
+            @Override
+            public boolean mouseClicked(double mouseX, double mouseY, int button) {
+                WorldFolderList.this.setSelected(this);
+                return true;
+            }
+
+            @Override
+            public Text getNarration() {
+                return Text.translatable("narrator.select", folder);
+            }
+        }
+    }
+}
@@ -1,43 +1,78 @@
 package com.piggygaming.ezmapdl;
 
-import com.mojang.logging.LogUtils;
+import com.piggygaming.ezmapdl.core.WorldMetadata;
+
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.text.Text;
-import org.slf4j.Logger;
 
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 
+/**
+ * Shows the name, version, game mode, cheats and last played date of the selected world,
+ * read from its level.dat by {@link WorldMetadataCache}.
+ */
 public class WorldDetailsWidget {
 
     private int x;
     private int y;
 
-    private final Logger LOGGER = LogUtils.getLogger();
-
     private final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("d/M/yy");
-    private final DrawContext CONTEXT;
-    private final String WORLD_NAME;
-    private final String FILE_NAME;
-    private final String VERSION;
-    private final boolean CHEATS_ENABLED;
-    private final String GAMEMODE;
-
-    public WorldDetailsWidget(int x, int y, DrawContext context, TextRenderer renderer, File levelDat) throws IOException {
-        this.CONTEXT = context;
-        this.WORLD_NAME = levelDat.getName();
-        this.FILE_NAME = "";
-        this.VERSION = "1.20.1";
-        this.CHEATS_ENABLED = false;
-        this.GAMEMODE = "Survival";
+    private final TextRenderer RENDERER;
+    private Text nameLine = Text.empty();
+    private Text detailsLine = Text.empty();
+
+    public WorldDetailsWidget(int x, int y, TextRenderer renderer) {
+        this.RENDERER = renderer;
         this.x = x;
         this.y = y;
+    }
+
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Shows a world whose metadata is still being read.
+     */
+    public void setLoading(File file) {
+        this.nameLine = Text.literal(file.getName());
+        this.detailsLine = Text.literal("Reading world details...");
+    }
+
+    /**
+     * Shows a world whose level.dat could not be read.
+     */
+    public void setUnreadable(File file) {
+        this.nameLine = Text.literal(file.getName());
+        this.detailsLine = Text.literal("Could not read level.dat");
+    }
+
+    public void setWorld(File file, WorldMetadata metadata) {
+        String levelName = metadata.getLevelName() != null ? metadata.getLevelName() : file.getName();
+        this.nameLine = Text.literal(levelName + " (" + file.getName() + ")");
+
+        StringBuilder details = new StringBuilder();
+        details.append(metadata.getVersionName() != null ? metadata.getVersionName() : "Unknown version");
+        details.append(" - ").append(metadata.getGameModeName());
+        details.append(" - Cheats ").append(metadata.isAllowCommands() ? "on" : "off");
+        if (metadata.getLastPlayed() > 0) {
+            details.append(" - Last played ").append(DATE_FORMAT.format(new Date(metadata.getLastPlayed())));
+        }
+        this.detailsLine = Text.literal(details.toString());
+    }
+
+    public void clear() {
+        this.nameLine = Text.empty();
+        this.detailsLine = Text.empty();
+    }
 
-        context.drawCenteredTextWithShadow(renderer, Text.literal(WORLD_NAME), x, y, 16777215);
+    public void render(DrawContext context) {
+        context.drawCenteredTextWithShadow(RENDERER, nameLine, x, y, 16777215);
+        context.drawCenteredTextWithShadow(RENDERER, detailsLine, x, y + 12, 11184810);
     }
 
 }
@@ -0,0 +1,353 @@
+package com.piggygaming.ezmapdl;
+
+import com.piggygaming.ezmapdl.core.ArchiveFingerprint;
+import com.piggygaming.ezmapdl.core.ArchiveReaders;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thumbnails of world archives and folders, taken from the icon.png next to their level.dat.
+ *
+ * <p>Icons are read, decoded and downscaled on background threads, and kept on disk keyed by
+ * archive fingerprint so they are only extracted once; the oldest of more than
+ * {@link #MAX_THUMBNAILS} are deleted when the game starts. Textures are uploaded on the render
+ * thread only when a visible row asks for them, and at most {@link #MAX_TEXTURES} stay uploaded.
+ * A replaced archive gets a new fingerprint, so its icon is loaded again.</p>
+ */
+@Environment(EnvType.CLIENT)
+public class WorldIconCache {
+
+    public static final Identifier UNKNOWN_ICON = Identifier.ofVanilla("textures/misc/unknown_server.png");
+
+    private static final int ICON_SIZE = 64;
+    private static final int MAX_TEXTURES = 128;
+    private static final int MAX_DECODED = 32;
+    private static final int MAX_FINGERPRINTS = 1024;
+    private static final int MAX_THUMBNAILS = 2048;
+    /** Requests that have not been repeated for this many frames are for rows scrolled out of view. */
+    private static final int STALE_FRAMES = 10;
+    /** How many frames a row's fingerprint is trusted before the file is looked at again. */
+    private static final int FINGERPRINT_FRAMES = 60;
+    /** How many frames to wait before trying again to read an icon that failed to load. */
+    private static final int RETRY_FRAMES = 600;
+    /** Marks an archive that has no icon at all, as opposed to one that failed to load. */
+    private static final int NEVER = Integer.MIN_VALUE;
+    private static final WorldIconCache INSTANCE = new WorldIconCache();
+
+    private final ExecutorService executor;
+    /** The fingerprint of each drawn archive and the frame it was taken. Render thread only. */
+    private final LinkedHashMap<File, CheckedFingerprint> fingerprints = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, CheckedFingerprint> eldest) {
+            return size() > MAX_FINGERPRINTS;
+        }
+    };
+    /** Uploaded textures, least recently drawn first. Render thread only. */
+    private final LinkedHashMap<ArchiveFingerprint, Identifier> textures = new LinkedHashMap<>(64, 0.75f, true);
+    /**
+     * Decoded icons waiting for their row to be drawn. Whoever removes an icon from here owns its image:
+     * the render thread uploads it, a loader evicting it closes it.
+     */
+    private final Map<ArchiveFingerprint, DecodedIcon> decoded = new ConcurrentHashMap<>();
+    /** Archives still being loaded, with the frame their icon was last asked for. */
+    private final Map<ArchiveFingerprint, Request> pending = new ConcurrentHashMap<>();
+    /** Archives without a usable icon, with the frame to try again at, or {@link #NEVER}. */
+    private final Map<ArchiveFingerprint, Integer> missing = new ConcurrentHashMap<>();
+    private volatile int frame;
+
+    private WorldIconCache() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "EasyMapDownload-Icons-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.execute(WorldIconCache::pruneThumbnails);
+    }
+
+    public static WorldIconCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Call once per frame before asking for icons, so loads for rows that scrolled away can be dropped.
+     */
+    public void onFrame() {
+        frame++;
+    }
+
+    /**
+     * Returns the texture to draw for an archive, starting to load it on first use.
+     * Must be called on the render thread, and only for rows that are actually visible.
+     */
+    public Identifier getIcon(File archive) {
+        ArchiveFingerprint fingerprint = fingerprint(archive);
+        Identifier texture = textures.get(fingerprint);
+        if (texture != null) {
+            return texture;
+        }
+        Integer retryAt = missing.get(fingerprint);
+        if (retryAt != null) {
+            if (retryAt == NEVER || frame - retryAt < 0) {
+                return UNKNOWN_ICON;
+            }
+            missing.remove(fingerprint);
+        }
+
+        DecodedIcon icon = decoded.remove(fingerprint);
+        if (icon != null) {
+            return upload(fingerprint, icon);
+        }
+
+        Request request = pending.get(fingerprint);
+        if (request != null) {
+            request.frame = frame;
+        } else if (pending.putIfAbsent(fingerprint, new Request(frame)) == null) {
+            executor.execute(() -> load(archive, fingerprint));
+        }
+        return UNKNOWN_ICON;
+    }
+
+    /**
+     * Returns the archive's fingerprint, reading it from disk again every {@link #FINGERPRINT_FRAMES}
+     * frames. The texture of an archive that changed is released.
+     */
+    private ArchiveFingerprint fingerprint(File archive) {
+        CheckedFingerprint checked = fingerprints.get(archive);
+        if (checked != null && frame - checked.frame() < FINGERPRINT_FRAMES) {
+            return checked.fingerprint();
+        }
+        ArchiveFingerprint fingerprint = ArchiveFingerprint.of(archive);
+        if (checked != null && !checked.fingerprint().equals(fingerprint)) {
+            Identifier stale = textures.remove(checked.fingerprint());
+            if (stale != null) {
+                MinecraftClient.getInstance().getTextureManager().destroyTexture(stale);
+            }
+        }
+        fingerprints.put(archive, new CheckedFingerprint(fingerprint, frame));
+        return fingerprint;
+    }
+
+    private Identifier upload(ArchiveFingerprint fingerprint, DecodedIcon icon) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        Identifier id = Identifier.of(EasyMapDownload.MOD_ID, "world_icons/" + icon.cacheKey());
+        client.getTextureManager().registerTexture(id, new NativeImageBackedTexture(icon.image()));
+        textures.put(fingerprint, id);
+
+        if (textures.size() > MAX_TEXTURES) {
+            Iterator<Map.Entry<ArchiveFingerprint, Identifier>> eldest = textures.entrySet().iterator();
+            client.getTextureManager().destroyTexture(eldest.next().getValue());
+            eldest.remove();
+        }
+        return id;
+    }
+
+    /**
+     * Loads one icon on a background thread: from the disk cache if present, otherwise from the archive.
+     */
+    private void load(File archive, ArchiveFingerprint fingerprint) {
+        Request request = pending.get(fingerprint);
+        if (request == null || frame - request.frame > STALE_FRAMES) {
+            // The row scrolled out of view before we got to it; it will ask again when visible
+            pending.remove(fingerprint);
+            return;
+        }
+
+        try {
+            String cacheKey = cacheKey(fingerprint);
+            Path cached = getThumbnailDirectory().resolve(cacheKey + ".png");
+            NativeImage image;
+            if (Files.isRegularFile(cached)) {
+                try (InputStream stream = Files.newInputStream(cached)) {
+                    image = NativeImage.read(stream);
+                }
+                // Pruning deletes the thumbnails that were used least recently
+                Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                image = readFromArchive(archive);
+                if (image == null) {
+                    missing.put(fingerprint, NEVER);
+                    return;
+                }
+                Files.createDirectories(cached.getParent());
+                image.writeTo(cached);
+            }
+            addDecoded(fingerprint, new DecodedIcon(image, cacheKey));
+        } catch (Exception e) {
+            // May be a download still in progress or a file briefly locked, so try again later
+            EasyMapDownload.LOGGER.debug("Could not load icon of " + archive.getName() + ": " + e.getMessage());
+            missing.put(fingerprint, frame + RETRY_FRAMES);
+        } finally {
+            pending.remove(fingerprint);
+        }
+    }
+
+    private void addDecoded(ArchiveFingerprint fingerprint, DecodedIcon icon) {
+        DecodedIcon previous = decoded.put(fingerprint, icon);
+        if (previous != null) {
+            previous.image().close();
+        }
+        // Keep memory bounded if rows ask for icons faster than they are drawn
+        if (decoded.size() > MAX_DECODED) {
+            Iterator<Map.Entry<ArchiveFingerprint, DecodedIcon>> iterator = decoded.entrySet().iterator();
+            while (decoded.size() > MAX_DECODED && iterator.hasNext()) {
+                Map.Entry<ArchiveFingerprint, DecodedIcon> entry = iterator.next();
+                // The render thread may have taken the icon meanwhile, only close it if this removed it
+                if (!entry.getKey().equals(fingerprint) && decoded.remove(entry.getKey(), entry.getValue())) {
+                    entry.getValue().image().close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used thumbnails beyond {@link #MAX_THUMBNAILS}, so icons of archives
+     * that were replaced or deleted long ago do not pile up.
+     */
+    private static void pruneThumbnails() {
+        Path directory = getThumbnailDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Map.Entry<Path, Long>> thumbnails = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.png")) {
+            for (Path thumbnail : stream) {
+                thumbnails.add(Map.entry(thumbnail, Files.getLastModifiedTime(thumbnail).toMillis()));
+            }
+        } catch (IOException e) {
+            EasyMapDownload.LOGGER.debug("Could not list " + directory + ": " + e.getMessage());
+            return;
+        }
+        if (thumbnails.size() <= MAX_THUMBNAILS) {
+            return;
+        }
+        thumbnails.sort(Map.Entry.comparingByValue());
+        int deleted = 0;
+        for (Map.Entry<Path, Long> thumbnail : thumbnails.subList(0, thumbnails.size() - MAX_THUMBNAILS)) {
+            try {
+                Files.deleteIfExists(thumbnail.getKey());
+                deleted++;
+            } catch (IOException e) {
+                // Retried on the next start
+            }
+        }
+        EasyMapDownload.LOGGER.debug("Deleted " + deleted + " old world thumbnails");
+    }
+
+    /**
+     * Reads icon.png next to the world's level.dat and scales it down to at most 64x64.
+     * @return The icon, or null if the world has none
+     */
+    private static NativeImage readFromArchive(File archive) throws IOException {
+        NativeImage image;
+        if (archive.isDirectory()) {
+            Path icon = archive.toPath().resolve("icon.png");
+            if (!Files.isRegularFile(icon)) {
+                return null;
+            }
+            try (InputStream stream = Files.newInputStream(icon)) {
+                image = NativeImage.read(stream);
+            }
+        } else {
+            try (InputStream stream = ArchiveReaders.forFileOrZip(archive).openWorldFile(archive, "icon.png")) {
+                if (stream == null) {
+                    return null;
+                }
+                image = NativeImage.read(stream);
+            }
+        }
+        if (image.getWidth() <= ICON_SIZE && image.getHeight() <= ICON_SIZE) {
+            return image;
+        }
+        try {
+            return downscale(image);
+        } finally {
+            image.close();
+        }
+    }
+
+    /**
+     * Box-filters an image down to 64x64.
+     */
+    private static NativeImage downscale(NativeImage source) {
+        NativeImage target = new NativeImage(ICON_SIZE, ICON_SIZE, false);
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        for (int y = 0; y < ICON_SIZE; y++) {
+            int y0 = y * sourceHeight / ICON_SIZE;
+            int y1 = Math.max(y0 + 1, (y + 1) * sourceHeight / ICON_SIZE);
+            for (int x = 0; x < ICON_SIZE; x++) {
+                int x0 = x * sourceWidth / ICON_SIZE;
+                int x1 = Math.max(x0 + 1, (x + 1) * sourceWidth / ICON_SIZE);
+                long c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    for (int sx = x0; sx < x1; sx++) {
+                        int color = source.getColor(sx, sy);
+                        c0 += color & 0xFF;
+                        c1 += (color >>> 8) & 0xFF;
+                        c2 += (color >>> 16) & 0xFF;
+                        c3 += (color >>> 24) & 0xFF;
+                    }
+                }
+                int count = (y1 - y0) * (x1 - x0);
+                target.setColor(x, y, (int) (c0 / count) | (int) (c1 / count) << 8 | (int) (c2 / count) << 16 | (int) (c3 / count) << 24);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * An icon read on a loader thread, with the key its texture is registered under, so uploading it
+     * touches no files.
+     */
+    private record DecodedIcon(NativeImage image, String cacheKey) {
+    }
+
+    private record CheckedFingerprint(ArchiveFingerprint fingerprint, int frame) {
+    }
+
+    /**
+     * A load that has been queued, updated in place by the render thread while its row stays visible.
+     */
+    private static final class Request {
+        private volatile int frame;
+
+        private Request(int frame) {
+            this.frame = frame;
+        }
+    }
+
+    private static Path getThumbnailDirectory() {
+        return EasyMapDownloadConfig.getDataDirectory().resolve("thumbnails");
+    }
+
+    private static String cacheKey(ArchiveFingerprint fingerprint) {
+        String key = fingerprint.path() + "|" + fingerprint.size() + "|" + fingerprint.lastModified();
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
@@ -0,0 +1,258 @@
+package com.piggygaming.ezmapdl;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.AlwaysSelectedEntryListWidget;
+import net.minecraft.text.Text;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Scrollable list of world archives found by the scan.
+ *
+ * <p>Only rows inside the visible area are drawn, and each row keeps its trimmed label so drawing a
+ * frame allocates nothing. {@link #setWorlds(List, Map)} merges a new scan result into the existing rows,
+ * so a running scan only adds or removes the rows that changed.</p>
+ *
+ * <p>Several rows can be checked for installing together: Ctrl+click checks or unchecks a row,
+ * Shift+click checks the rows between the last clicked one and this one, and a plain click clears the checks.</p>
+ */
+@Environment(EnvType.CLIENT)
+public class WorldListWidget extends AlwaysSelectedEntryListWidget<WorldListWidget.WorldEntry> {
+
+    private static final int ROW_HEIGHT = 24;
+    private static final int ROW_WIDTH = 300;
+    private static final int ICON_SIZE = 20;
+    private static final String INSTALLED_TAG = "Installed";
+    private static final int CHECKED_COLOR = 0x403070FF;
+
+    private final Consumer<File> onSelected;
+    /** Rows by archive, so merges can find existing rows without scanning the list. */
+    private final Map<File, WorldEntry> entriesByFile = new HashMap<>();
+    /** The row a Shift+click range starts from. */
+    private WorldEntry anchor;
+
+    /**
+     * @param onSelected Called with the archive of a row when the user selects it
+     */
+    public WorldListWidget(MinecraftClient client, int width, int height, int y, Consumer<File> onSelected) {
+        super(client, width, height, y, ROW_HEIGHT);
+        this.onSelected = onSelected;
+    }
+
+    /**
+     * Makes the rows match the given archives, in order, reusing the rows that are already there.
+     * @param duplicateCounts How many other copies of an archive were found, for archives that have copies
+     */
+    public void setWorlds(List<File> worlds, Map<File, Integer> duplicateCounts) {
+        List<WorldEntry> rows = children();
+        for (int i = 0; i < worlds.size(); i++) {
+            File file = worlds.get(i);
+            if (i < rows.size() && rows.get(i).file.equals(file)) {
+                rows.get(i).setDuplicates(duplicateCounts.getOrDefault(file, 0));
+                continue;
+            }
+            WorldEntry existing = entriesByFile.get(file);
+            if (existing != null) {
+                // Moved up; anything before its old position that is no longer listed gets dropped below
+                rows.remove(existing);
+                rows.add(i, existing);
+            } else {
+                WorldEntry entry = new WorldEntry(file);
+                entriesByFile.put(file, entry);
+                rows.add(i, entry);
+            }
+            rows.get(i).setDuplicates(duplicateCounts.getOrDefault(file, 0));
+        }
+        while (rows.size() > worlds.size()) {
+            WorldEntry removed = rows.remove(rows.size() - 1);
+            entriesByFile.remove(removed.file);
+            if (removed == anchor) {
+                anchor = null;
+            }
+        }
+
+        WorldEntry selected = getSelectedOrNull();
+        if (selected != null && !entriesByFile.containsKey(selected.file)) {
+            setSelected(null);
+        }
+        // Clamps the scroll position to the new length
+        setScrollAmount(getScrollAmount());
+    }
+
+    /**
+     * Marks the rows of archives that were installed before.
+     */
+    public void setInstalled(Set<File> installed) {
+        for (WorldEntry entry : children()) {
+            entry.setInstalled(installed.contains(entry.file));
+        }
+    }
+
+    /**
+     * Returns the archives of the checked rows, in list order.
+     */
+    public List<File> getCheckedFiles() {
+        List<File> files = new ArrayList<>();
+        for (WorldEntry entry : children()) {
+            if (entry.checked) {
+                files.add(entry.file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Unchecks every row.
+     */
+    public void clearChecked() {
+        for (WorldEntry entry : children()) {
+            entry.checked = false;
+        }
+    }
+
+    private void onRowClicked(WorldEntry entry) {
+        if (Screen.hasShiftDown() && anchor != null) {
+            int from = children().indexOf(anchor);
+            int to = children().indexOf(entry);
+            clearChecked();
+            for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+                children().get(i).checked = true;
+            }
+        } else if (Screen.hasControlDown()) {
+            // The first Ctrl+click adds to the row that was already selected
+            WorldEntry selected = getSelectedOrNull();
+            if (selected != null && selected != entry && getCheckedFiles().isEmpty()) {
+                selected.checked = true;
+            }
+            entry.checked = !entry.checked;
+            anchor = entry;
+        } else {
+            clearChecked();
+            anchor = entry;
+        }
+        setSelected(entry);
+    }
+
+    /**
+     * Selects the row of an archive without notifying the listener.
+     */
+    public void select(File file) {
+        WorldEntry entry = file != null ? entriesByFile.get(file) : null;
+        super.setSelected(entry);
+    }
+
+    @Override
+    public void setSelected(WorldEntry entry) {
+        super.setSelected(entry);
+        if (entry != null) {
+            onSelected.accept(entry.file);
+        }
+    }
+
+    @Override
+    public int getRowWidth() {
+        return ROW_WIDTH;
+    }
+
+    @Override
+    protected void renderList(DrawContext context, int mouseX, int mouseY, float delta) {
+        // Start at the first row that can be on screen instead of checking every row
+        int count = getEntryCount();
+        int rowLeft = getRowLeft();
+        int rowWidth = getRowWidth();
+        int first = Math.max(0, (int) (getScrollAmount() / itemHeight) - 1);
+        for (int i = first; i < count; i++) {
+            int rowTop = getRowTop(i);
+            if (rowTop > getBottom()) {
+                break;
+            }
+            if (rowTop + itemHeight >= getY()) {
+                renderEntry(context, mouseX, mouseY, delta, i, rowLeft, rowTop, rowWidth, itemHeight - 4);
+            }
+        }
+    }
+
+    @Environment(EnvType.CLIENT)
+    public class WorldEntry extends AlwaysSelectedEntryListWidget.Entry<WorldEntry> {
+
+        private final File file;
+        private final String name;
+        private String label;
+        private int labelWidth = -1;
+        private int duplicates;
+        private boolean installed;
+        private boolean checked;
+        private int tagWidth;
+
+        WorldEntry(File file) {
+            this.file = file;
+            this.name = file.getName();
+        }
+
+        void setDuplicates(int duplicates) {
+            if (duplicates != this.duplicates) {
+                this.duplicates = duplicates;
+                labelWidth = -1;
+            }
+        }
+
+        void setInstalled(boolean installed) {
+            if (installed != this.installed) {
+                this.installed = installed;
+                labelWidth = -1;
+            }
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public void render(DrawContext context, int index, int y, int x, int entryWidth, int entryHeight, int mouseX, int mouseY, boolean hovered, float tickDelta) {
+            if (checked) {
+                context.fill(x - 2, y - 2, x + entryWidth - 3, y + entryHeight + 2, CHECKED_COLOR);
+            }
+            RenderSystem.enableBlend();
+            context.drawTexture(WorldIconCache.get().getIcon(file), x, y, 0, 0, ICON_SIZE, ICON_SIZE, ICON_SIZE, ICON_SIZE);
+            RenderSystem.disableBlend();
+
+            // Trim once per width rather than every frame
+            int textWidth = entryWidth - ICON_SIZE - 6;
+            if (textWidth != labelWidth) {
+                // The copy count and installed tag stay visible, the name is trimmed to make room for them
+                String suffix = duplicates > 0 ? " (" + (duplicates + 1) + " copies)" : "";
+                tagWidth = installed ? client.textRenderer.getWidth(INSTALLED_TAG) : 0;
+                int nameWidth = Math.max(0, textWidth - (installed ? tagWidth + 6 : 0) - client.textRenderer.getWidth(suffix));
+                label = client.textRenderer.trimToWidth(name, nameWidth) + suffix;
+                labelWidth = textWidth;
+            }
+            int textY = y + (ICON_SIZE - 8) / 2;
+            context.drawText(client.textRenderer, label, x + ICON_SIZE + 4, textY, 0xFFFFFF, false);
+            if (installed) {
+                context.drawText(client.textRenderer, INSTALLED_TAG, x + entryWidth - tagWidth - 2, textY, 0x55FF55, false);
+            }
+        }
+
+        @Override
+        public boolean mouseClicked(double mouseX, double mouseY, int button) {
+            onRowClicked(this);
+            return true;
+        }
+
+        @Override
+        public Text getNarration() {
+            return Text.translatable("narrator.select", name);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.piggygaming.ezmapdl;
+
+import com.piggygaming.ezmapdl.core.ArchiveFingerprint;
+import com.piggygaming.ezmapdl.core.LevelDatReader;
+import com.piggygaming.ezmapdl.core.WorldMetadata;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads world metadata on background threads and keeps the most recent results,
+ * keyed by archive fingerprint so a changed archive is read again.
+ */
+public class WorldMetadataCache {
+
+    private static final int MAX_ENTRIES = 1024;
+    private static final WorldMetadataCache INSTANCE = new WorldMetadataCache();
+
+    private final Map<ArchiveFingerprint, WorldMetadata> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ArchiveFingerprint, WorldMetadata> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final ExecutorService executor;
+
+    private WorldMetadataCache() {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "EasyMapDownload-Metadata-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static WorldMetadataCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the metadata of a world archive, reading it in the background if it is not cached.
+     * The future fails if the archive's level.dat cannot be read.
+     */
+    public CompletableFuture<WorldMetadata> request(File archive) {
+        return CompletableFuture.supplyAsync(() -> load(archive), executor);
+    }
+
+    private WorldMetadata load(File archive) {
+        ArchiveFingerprint fingerprint = ArchiveFingerprint.of(archive);
+        synchronized (cache) {
+            WorldMetadata cached = cache.get(fingerprint);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        WorldMetadata metadata;
+        try {
+            metadata = LevelDatReader.read(archive);
+        } catch (Exception e) {
+            EasyMapDownload.LOGGER.debug("Could not read level.dat from " + archive.getName() + ": " + e.getMessage());
+            throw new IllegalStateException(e);
+        }
+        synchronized (cache) {
+            cache.put(fingerprint, metadata);
+        }
+        return metadata;
+    }
+}